@@ -0,0 +1,80 @@
+package com.ajthegreattt.renderdoc4j.annotations;
+
+import com.ajthegreattt.renderdoc4j.backbone.RenderDocLibrary;
+import com.ajthegreattt.renderdoc4j.memory.NativeArena;
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An immutable {@link RenderDocAnnotationValue} whose union was written into native memory exactly once, when it was {@link RenderDocAnnotationValue#freeze() frozen}.
+ *
+ * <p>The union has automatic synchronization disabled, so JNA passes its pointer to RenderDoc as-is instead of writing it again before (and reading it back after) every call.</p>
+ */
+final class FrozenAnnotationValue extends RenderDocAnnotationValue {
+
+    private final RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference union;
+
+    private final long contentHash;
+
+    FrozenAnnotationValue(RenderDocAnnotationValue value, Pointer memory) {
+        super(value.annotationType, value.vectorLength);
+
+        // The value is read exactly once, so later changes to e.g. the array of a vector value do not affect it
+        this.union = value.fill(new RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference(memory));
+        this.union.write();
+        this.union.setAutoSynch(false);
+
+        this.contentHash = value.hashContents();
+    }
+
+    static FrozenAnnotationValue of(RenderDocAnnotationValue value) {
+        return new FrozenAnnotationValue(value, new Memory(RenderDocLibrary.RENDERDOC_AnnotationValue.SIZE));
+    }
+
+    @Override
+    public boolean isFrozen() {
+        return true;
+    }
+
+    @Override
+    public RenderDocAnnotationValue freeze() {
+        return this;
+    }
+
+    @Override
+    public RenderDocAnnotationValue freeze(@NotNull NativeArena arena) {
+        return this;
+    }
+
+    /**
+     * @return The union that was written when this value was frozen. It must not be modified.
+     */
+    @Override
+    public RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference toUnion() {
+        return this.union;
+    }
+
+    /**
+     * @return The union that was written when this value was frozen, rather than a copy allocated from the {@code arena}. It must not be modified.
+     */
+    @Override
+    public RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference toUnion(@NotNull NativeArena arena) {
+        return this.union;
+    }
+
+    @Override
+    RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference fill(RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference union) {
+        // Copies the raw union, including any string pointer, which stays valid as long as this value is reachable
+        final int size = RenderDocLibrary.RENDERDOC_AnnotationValue.SIZE;
+        union.getPointer().write(0, this.union.getPointer().getByteArray(0, size), 0, size);
+        union.read();
+
+        return union;
+    }
+
+    @Override
+    long hashContents() {
+        return this.contentHash;
+    }
+}
@@ -42,9 +42,12 @@ public class RenderDocAnnotationType {
         public RenderDocAnnotationValue value(boolean value) {
             return new RenderDocAnnotationValue(this) {
                 @Override
-                public RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference toUnion() {
-                    final RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference byReference = new RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference();
+                long hashContents() {
+                    return value ? 1 : 0;
+                }
 
+                @Override
+                RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference fill(RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference byReference) {
                     if (value) {
                         byReference.bool = 1;
                     } else {
@@ -65,9 +68,18 @@ public class RenderDocAnnotationType {
 
             return new RenderDocAnnotationValue(this, bools.length) {
                 @Override
-                public RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference toUnion() {
-                    final RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference valueByReference = new RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference();
+                long hashContents() {
+                    long hash = 0;
+
+                    for (int i = 0; i < this.vectorLength; ++i) {
+                        hash = combine(hash, bools[i] ? 1 : 0);
+                    }
 
+                    return hash;
+                }
+
+                @Override
+                RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference fill(RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference valueByReference) {
                     final RenderDocLibrary.RENDERDOC_AnnotationVectorValue.ByValue vector = new RenderDocLibrary.RENDERDOC_AnnotationVectorValue.ByValue();;
 
                     for (int i = 0; i < this.vectorLength; ++i) {
@@ -104,9 +116,12 @@ public class RenderDocAnnotationType {
         public RenderDocAnnotationValue value(int value) {
             return new RenderDocAnnotationValue(this) {
                 @Override
-                public RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference toUnion() {
-                    final RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference byReference = new RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference();
+                long hashContents() {
+                    return value;
+                }
 
+                @Override
+                RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference fill(RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference byReference) {
                     switch (this.annotationType.fieldName) {
                         case "int32": {
                             byReference.int32 = value;
@@ -134,9 +149,18 @@ public class RenderDocAnnotationType {
 
             return new RenderDocAnnotationValue(this, values.length) {
                 @Override
-                public RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference toUnion() {
-                    final RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference valueByReference = new RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference();
+                long hashContents() {
+                    long hash = 0;
+
+                    for (int i = 0; i < this.vectorLength; ++i) {
+                        hash = combine(hash, values[i]);
+                    }
+
+                    return hash;
+                }
 
+                @Override
+                RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference fill(RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference valueByReference) {
                     final RenderDocLibrary.RENDERDOC_AnnotationVectorValue.ByValue vector = new RenderDocLibrary.RENDERDOC_AnnotationVectorValue.ByValue();;
 
                     System.arraycopy(values, 0, vectorGetter.apply(vector), 0, this.vectorLength);
@@ -164,9 +188,12 @@ public class RenderDocAnnotationType {
         public RenderDocAnnotationValue value(int value) {
             return new RenderDocAnnotationValue(this) {
                 @Override
-                public RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference toUnion() {
-                    final RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference byReference = new RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference();
+                long hashContents() {
+                    return value;
+                }
 
+                @Override
+                RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference fill(RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference byReference) {
                     switch (this.annotationType.fieldName) {
                         case "int64": {
                             byReference.int64 = value;
@@ -193,9 +220,18 @@ public class RenderDocAnnotationType {
 
             return new RenderDocAnnotationValue(this, values.length) {
                 @Override
-                public RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference toUnion() {
-                    final RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference valueByReference = new RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference();
+                long hashContents() {
+                    long hash = 0;
+
+                    for (int i = 0; i < this.vectorLength; ++i) {
+                        hash = combine(hash, values[i]);
+                    }
+
+                    return hash;
+                }
 
+                @Override
+                RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference fill(RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference valueByReference) {
                     final RenderDocLibrary.RENDERDOC_AnnotationVectorValue.ByValue vector = new RenderDocLibrary.RENDERDOC_AnnotationVectorValue.ByValue();;
 
                     System.arraycopy(values, 0, vectorGetter.apply(vector), 0, this.vectorLength);
@@ -220,9 +256,12 @@ public class RenderDocAnnotationType {
         public RenderDocAnnotationValue value(float value) {
             return new RenderDocAnnotationValue(this) {
                 @Override
-                public RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference toUnion() {
-                    final RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference byReference = new RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference();
+                long hashContents() {
+                    return java.lang.Float.floatToIntBits(value);
+                }
 
+                @Override
+                RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference fill(RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference byReference) {
                     byReference.float32 = value;
 
                     byReference.setType(this.annotationType.fieldName);
@@ -239,9 +278,18 @@ public class RenderDocAnnotationType {
 
             return new RenderDocAnnotationValue(this, values.length) {
                 @Override
-                public RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference toUnion() {
-                    final RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference valueByReference = new RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference();
+                long hashContents() {
+                    long hash = 0;
 
+                    for (int i = 0; i < this.vectorLength; ++i) {
+                        hash = combine(hash, java.lang.Float.floatToIntBits(values[i]));
+                    }
+
+                    return hash;
+                }
+
+                @Override
+                RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference fill(RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference valueByReference) {
                     final RenderDocLibrary.RENDERDOC_AnnotationVectorValue.ByValue vector = new RenderDocLibrary.RENDERDOC_AnnotationVectorValue.ByValue();;
 
                     System.arraycopy(values, 0, vector.float32s, 0, this.vectorLength);
@@ -266,9 +314,12 @@ public class RenderDocAnnotationType {
         public RenderDocAnnotationValue value(double value) {
             return new RenderDocAnnotationValue(this) {
                 @Override
-                public RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference toUnion() {
-                    final RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference byReference = new RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference();
+                long hashContents() {
+                    return java.lang.Double.doubleToLongBits(value);
+                }
 
+                @Override
+                RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference fill(RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference byReference) {
                     byReference.float64 = value;
 
                     byReference.setType(this.annotationType.fieldName);
@@ -285,9 +336,18 @@ public class RenderDocAnnotationType {
 
             return new RenderDocAnnotationValue(this, values.length) {
                 @Override
-                public RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference toUnion() {
-                    final RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference valueByReference = new RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference();
+                long hashContents() {
+                    long hash = 0;
+
+                    for (int i = 0; i < this.vectorLength; ++i) {
+                        hash = combine(hash, java.lang.Double.doubleToLongBits(values[i]));
+                    }
+
+                    return hash;
+                }
 
+                @Override
+                RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference fill(RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference valueByReference) {
                     final RenderDocLibrary.RENDERDOC_AnnotationVectorValue.ByValue vector = new RenderDocLibrary.RENDERDOC_AnnotationVectorValue.ByValue();;
 
                     System.arraycopy(values, 0, vector.float64s, 0, this.vectorLength);
@@ -312,9 +372,12 @@ public class RenderDocAnnotationType {
         public RenderDocAnnotationValue value(java.lang.String value) {
             return new RenderDocAnnotationValue(this) {
                 @Override
-                public RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference toUnion() {
-                    final RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference byReference = new RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference();
+                long hashContents() {
+                    return hash(value);
+                }
 
+                @Override
+                RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference fill(RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference byReference) {
                     byReference.string = value;
 
                     byReference.setType(this.annotationType.fieldName);
@@ -333,9 +396,12 @@ public class RenderDocAnnotationType {
         public RenderDocAnnotationValue value(Pointer value) {
             return new RenderDocAnnotationValue(this) {
                 @Override
-                public RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference toUnion() {
-                    final RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference byReference = new RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference();
+                long hashContents() {
+                    return Pointer.nativeValue(value);
+                }
 
+                @Override
+                RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference fill(RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference byReference) {
                     byReference.apiObject = value;
 
                     byReference.setType(this.annotationType.fieldName);
@@ -1,6 +1,9 @@
 package com.ajthegreattt.renderdoc4j.annotations;
 
 import com.ajthegreattt.renderdoc4j.backbone.RenderDocLibrary;
+import com.ajthegreattt.renderdoc4j.memory.NativeArena;
+import com.ajthegreattt.renderdoc4j.util.Hashing;
+import org.jetbrains.annotations.NotNull;
 
 /**
  * A Java representation of the {@link RenderDocLibrary.RENDERDOC_AnnotationValue} union, specifically with vector
@@ -22,6 +25,84 @@ public abstract class RenderDocAnnotationValue {
             this.vectorLength = vectorLength;
     }
 
-    public abstract RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference toUnion();
+    /**
+     * @return A new union holding this value, whose native memory is freed once the garbage collector finalizes it
+     */
+    public RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference toUnion() {
+        return fill(new RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference());
+    }
+
+    /**
+     * @param arena The {@link NativeArena} to allocate the union's native memory from
+     * @return A new union holding this value, which is valid until the {@code arena} is reset or closed
+     */
+    public RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference toUnion(@NotNull NativeArena arena) {
+        return fill(new RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference(arena.allocate(RenderDocLibrary.RENDERDOC_AnnotationValue.SIZE)));
+    }
+
+    /**
+     * Fills the given union with this value and writes it to its native memory, so that one union can be reused for many values.
+     *
+     * <p>If this value is a string, the union keeps the native copy of the string alive only until the union is written again.</p>
+     *
+     * @param union The union to overwrite
+     */
+    public void writeTo(RenderDocLibrary.RENDERDOC_AnnotationValue.@NotNull ByReference union) {
+        fill(union).write();
+    }
+
+    /**
+     * Writes this value into native memory once, and returns an immutable copy of it that passes that memory to RenderDoc directly.
+     *
+     * <p>Use this for annotations that never change, such as material or pass names, so that setting them only costs the native call itself.
+     * The contents are read now, so later changes to e.g. the array of a vector value are not reflected in the frozen value.</p>
+     *
+     * <p>The native memory is freed once the frozen value is garbage collected. Use {@link #freeze(NativeArena)} to free it deterministically instead.</p>
+     *
+     * @return A frozen copy of this value, or this value if it is already {@link #isFrozen() frozen}
+     */
+    public RenderDocAnnotationValue freeze() {
+        return FrozenAnnotationValue.of(this);
+    }
+
+    /**
+     * Like {@link #freeze()}, but allocates the native memory from the given {@code arena}.
+     *
+     * @param arena A long-lived {@link NativeArena}. The frozen value must not be used after it is reset or closed.
+     * @return A frozen copy of this value, or this value if it is already {@link #isFrozen() frozen}
+     */
+    public RenderDocAnnotationValue freeze(@NotNull NativeArena arena) {
+        return new FrozenAnnotationValue(this, arena.allocate(RenderDocLibrary.RENDERDOC_AnnotationValue.SIZE));
+    }
 
+    /**
+     * @return {@code true} if this value was created by {@link #freeze()}, and its union is passed to RenderDoc without being written again
+     */
+    public boolean isFrozen() {
+        return false;
+    }
+
+    abstract RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference fill(RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference union);
+
+    /**
+     * Computes a 64-bit hash of this value's type, vector length and contents, without creating its union.
+     *
+     * <p>The contents are read again on every call, so a vector value whose backing array was modified will hash differently.
+     * Equal values always have equal hashes, which is what allows unchanged annotations to be skipped.</p>
+     *
+     * @return The hash of this value
+     */
+    public final long valueHash() {
+        return combine(combine(this.annotationType.value, this.vectorLength), hashContents());
+    }
+
+    abstract long hashContents();
+
+    static long combine(long hash, long value) {
+        return Hashing.mix(hash * 0x9E3779B97F4A7C15L + value);
+    }
+
+    static long hash(java.lang.String value) {
+        return value == null ? 0 : Hashing.fnv1a(value);
+    }
 }
@@ -0,0 +1,149 @@
+package com.ajthegreattt.renderdoc4j.backbone;
+
+import com.ajthegreattt.renderdoc4j.util.Hashing;
+import com.sun.jna.Pointer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Remembers the last value that was sent for every (device, object, key) triple, so that object annotations which did not change since the last frame can be skipped.
+ *
+ * <p>The table uses open addressing with linear probing. Each slot holds two {@code long}s, the hash of the triple and the {@link com.ajthegreattt.renderdoc4j.annotations.RenderDocAnnotationValue#valueHash() hash of the value},
+ * and lives off-heap in a direct buffer so that it neither adds to the garbage collector's work nor allocates once it has grown.
+ * A key of {@code 0} marks an empty slot.</p>
+ *
+ * <p>The table grows until {@link #MAX_CAPACITY} slots, after which it is simply cleared when it fills up, so its footprint is bounded.
+ * Keys are only compared by their 64-bit hash, so two distinct triples would have to collide <i>and</i> be set to values with colliding hashes for an annotation to be wrongly skipped.</p>
+ *
+ * <p>This class is thread-safe, as object annotations may be set from any thread. Every access to the table is guarded by this deduplicator's monitor, which is never held across a native call.</p>
+ *
+ * @see Builder#withAnnotationDeduplication()
+ */
+final class AnnotationDeduplicator {
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    /**
+     * The maximum number of slots, which is 16 MiB of native memory.
+     */
+    static final int MAX_CAPACITY = 1 << 20;
+
+    private LongBuffer table;
+
+    private int mask;
+
+    private int size;
+
+    AnnotationDeduplicator() {
+        this.table = allocate(INITIAL_CAPACITY);
+        this.mask = INITIAL_CAPACITY - 1;
+    }
+
+    private static LongBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * 2 * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+
+    /**
+     * @return The hash of the (device, object, key) triple, which is never {@code 0}
+     */
+    static long key(Pointer device, Pointer object, String key) {
+        long hash = Hashing.fnv1a(key);
+
+        hash = Hashing.mix(hash ^ Hashing.mix(Pointer.nativeValue(object) + 0x9E3779B97F4A7C15L));
+        hash = Hashing.mix(hash ^ Pointer.nativeValue(device));
+
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * @param key       The hash of the triple, from {@link #key(Pointer, Pointer, String)}
+     * @param valueHash The hash of the value about to be sent
+     * @return {@code true} if the last value remembered for this key has the same hash
+     */
+    synchronized boolean isUnchanged(long key, long valueHash) {
+        final int slot = find(this.table, this.mask, key);
+        return this.table.get(slot) == key && this.table.get(slot + 1) == valueHash;
+    }
+
+    /**
+     * Remembers {@code valueHash} as the last value that was sent for the given key.
+     */
+    synchronized void remember(long key, long valueHash) {
+        int slot = find(this.table, this.mask, key);
+
+        if (this.table.get(slot) != key) {
+            if ((this.size + 1) * 4 > (this.mask + 1) * 3) {
+                grow();
+                slot = find(this.table, this.mask, key);
+            }
+
+            this.table.put(slot, key);
+            ++this.size;
+        }
+
+        this.table.put(slot + 1, valueHash);
+    }
+
+    /**
+     * Forgets every remembered value, so that all annotations are sent again. Called whenever a new capture starts.
+     */
+    synchronized void clear() {
+        if (this.size == 0) {
+            return;
+        }
+
+        final int length = this.table.capacity();
+
+        for (int i = 0; i < length; i += 2) {
+            this.table.put(i, 0);
+        }
+
+        this.size = 0;
+    }
+
+    /**
+     * @return The index of the slot holding {@code key}, or of the empty slot where it would be inserted
+     */
+    private static int find(LongBuffer table, int mask, long key) {
+        int index = (int) (key ^ (key >>> 32)) & mask;
+
+        while (true) {
+            final long stored = table.get(index << 1);
+
+            if (stored == key || stored == 0) {
+                return index << 1;
+            }
+
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void grow() {
+        final int capacity = this.mask + 1;
+
+        if (capacity >= MAX_CAPACITY) {
+            clear();
+            return;
+        }
+
+        final int newCapacity = capacity << 1;
+        final int newMask = newCapacity - 1;
+
+        final LongBuffer newTable = allocate(newCapacity);
+
+        for (int i = 0; i < capacity << 1; i += 2) {
+            final long key = this.table.get(i);
+
+            if (key != 0) {
+                final int slot = find(newTable, newMask, key);
+                newTable.put(slot, key);
+                newTable.put(slot + 1, this.table.get(i + 1));
+            }
+        }
+
+        this.table = newTable;
+        this.mask = newMask;
+    }
+}
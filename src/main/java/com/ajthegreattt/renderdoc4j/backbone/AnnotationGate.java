@@ -0,0 +1,251 @@
+package com.ajthegreattt.renderdoc4j.backbone;
+
+import com.ajthegreattt.renderdoc4j.annotations.RenderDocAnnotationValue;
+import com.sun.jna.Pointer;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Decides whether annotations are sent to RenderDoc, based on whether a capture is in progress or about to start, and retains object annotations so they can be replayed when it does.
+ *
+ * <p>The gate is open while:</p>
+ * <ul>
+ *     <li>a capture was started with {@link RenderDocAPI#startFrameCapture()} and not ended or discarded yet,</li>
+ *     <li>a capture was triggered, until the next {@link RenderDocAPI#frameBoundary()}, or</li>
+ *     <li>the last {@link RenderDocAPI#frameBoundary()} saw a frame being captured, which also covers captures made with the capture keys.</li>
+ * </ul>
+ *
+ * <p>The latest value of every object annotation is retained whether the gate is open or not. Entries are found by the same 64-bit (device, object, key) hash as the {@link AnnotationDeduplicator},
+ * but are only matched if the device, object and key themselves are equal, so a hash collision never replaces another object's annotation.
+ * Whenever a capture starts, every retained annotation is replayed, so the capture sees the same object annotations it would have without gating.
+ * Retaining an annotation overwrites its entry in place, so it does not allocate once every object has been annotated.
+ * The annotations of a destroyed object are dropped by {@link #forget(Pointer, Pointer)}, so that they are not replayed onto a new object that reuses its handle.</p>
+ *
+ * <p>This class is thread-safe. The capture state is volatile, and the retained annotations are guarded by this gate's monitor, which is not held while they are replayed.</p>
+ *
+ * @see Builder#withAnnotationGating()
+ */
+final class AnnotationGate {
+
+    private volatile boolean manualCapture;
+
+    private volatile boolean triggered;
+
+    private volatile boolean frameCapturing;
+
+    private long[] table = new long[256];
+
+    private int[] indices = new int[256];
+
+    private int mask = 255;
+
+    private RenderDocLibrary.RENDERDOC_DevicePointer[] devices = new RenderDocLibrary.RENDERDOC_DevicePointer[64];
+
+    private Pointer[] objects = new Pointer[64];
+
+    private String[] keys = new String[64];
+
+    private RenderDocAnnotationValue[] values = new RenderDocAnnotationValue[64];
+
+    private long[] hashes = new long[64];
+
+    private int size;
+
+    /**
+     * @return {@code true} if annotations should be sent to RenderDoc right now
+     */
+    boolean isOpen() {
+        return this.manualCapture || this.frameCapturing || this.triggered;
+    }
+
+    /**
+     * Called when a capture is triggered, which starts at the next present.
+     */
+    void triggered() {
+        this.triggered = true;
+    }
+
+    /**
+     * Called when a capture is started manually, after which the retained annotations should be replayed.
+     */
+    void started() {
+        this.manualCapture = true;
+    }
+
+    /**
+     * Called when a manually started capture is ended or discarded.
+     */
+    void ended() {
+        this.manualCapture = false;
+    }
+
+    /**
+     * Called from every {@link RenderDocAPI#frameBoundary()}.
+     *
+     * @param frameCapturing Whether a frame is being captured
+     * @return {@code true} if the retained annotations should be replayed, which is the case for every captured frame, as each is a capture of its own
+     */
+    boolean frameBoundary(boolean frameCapturing) {
+        this.frameCapturing = frameCapturing;
+        this.triggered = false;
+
+        return frameCapturing;
+    }
+
+    /**
+     * Retains the latest value of an object annotation, or stops replaying it if {@code annotationValue} is {@code null}.
+     */
+    synchronized void retain(@Nullable RenderDocLibrary.RENDERDOC_DevicePointer device, @Nullable Pointer object, String key, @Nullable RenderDocAnnotationValue annotationValue) {
+        final long hash = AnnotationDeduplicator.key(device, object, key);
+
+        int slot = (int) (hash ^ (hash >>> 32)) & this.mask;
+
+        while (this.table[slot] != 0) {
+            if (this.table[slot] == hash && matches(this.indices[slot], device, object, key)) {
+                // A deleted annotation keeps its entry, but is no longer replayed
+                this.values[this.indices[slot]] = annotationValue;
+                return;
+            }
+
+            slot = (slot + 1) & this.mask;
+        }
+
+        if (annotationValue == null) {
+            return;
+        }
+
+        if (this.size == this.keys.length) {
+            final int capacity = this.size * 2;
+
+            this.devices = Arrays.copyOf(this.devices, capacity);
+            this.objects = Arrays.copyOf(this.objects, capacity);
+            this.keys = Arrays.copyOf(this.keys, capacity);
+            this.values = Arrays.copyOf(this.values, capacity);
+            this.hashes = Arrays.copyOf(this.hashes, capacity);
+        }
+
+        this.devices[this.size] = device;
+        this.objects[this.size] = object;
+        this.keys[this.size] = key;
+        this.values[this.size] = annotationValue;
+        this.hashes[this.size] = hash;
+
+        this.table[slot] = hash;
+        this.indices[slot] = this.size++;
+
+        if (this.size * 4 > this.table.length * 3) {
+            rehash(this.table.length * 2);
+        }
+    }
+
+    /**
+     * Sends every retained object annotation again. The annotations are copied under this gate's monitor, but sent without holding it.
+     */
+    void replay(RenderDocAPI api) {
+        final RenderDocLibrary.RENDERDOC_DevicePointer[] devices;
+        final Pointer[] objects;
+        final String[] keys;
+        final RenderDocAnnotationValue[] values;
+
+        synchronized (this) {
+            devices = Arrays.copyOf(this.devices, this.size);
+            objects = Arrays.copyOf(this.objects, this.size);
+            keys = Arrays.copyOf(this.keys, this.size);
+            values = Arrays.copyOf(this.values, this.size);
+        }
+
+        for (int i = 0; i < values.length; ++i) {
+            final @Nullable RenderDocAnnotationValue value = values[i];
+
+            if (value != null) {
+                api.sendObjectAnnotation(devices[i], objects[i], keys[i], value);
+            }
+        }
+    }
+
+    /**
+     * Drops every retained annotation of the {@code object}, which takes time proportional to the number of retained annotations.
+     *
+     * @param device The device of the annotations to drop, or {@code null} to drop them for every device
+     * @param object The object whose annotations to drop
+     * @return The number of annotations that were dropped
+     */
+    synchronized int forget(@Nullable Pointer device, @Nullable Pointer object) {
+        final long objectPeer = peer(object);
+        final long devicePeer = peer(device);
+
+        int kept = 0;
+
+        for (int i = 0; i < this.size; ++i) {
+            if (peer(this.objects[i]) == objectPeer && (device == null || peer(this.devices[i]) == devicePeer)) {
+                continue;
+            }
+
+            this.devices[kept] = this.devices[i];
+            this.objects[kept] = this.objects[i];
+            this.keys[kept] = this.keys[i];
+            this.values[kept] = this.values[i];
+            this.hashes[kept] = this.hashes[i];
+            ++kept;
+        }
+
+        final int forgotten = this.size - kept;
+
+        if (forgotten > 0) {
+            Arrays.fill(this.devices, kept, this.size, null);
+            Arrays.fill(this.objects, kept, this.size, null);
+            Arrays.fill(this.keys, kept, this.size, null);
+            Arrays.fill(this.values, kept, this.size, null);
+
+            this.size = kept;
+
+            rehash(this.table.length);
+        }
+
+        return forgotten;
+    }
+
+    /**
+     * Forgets every retained object annotation.
+     */
+    synchronized void clear() {
+        Arrays.fill(this.table, 0);
+        Arrays.fill(this.devices, 0, this.size, null);
+        Arrays.fill(this.objects, 0, this.size, null);
+        Arrays.fill(this.keys, 0, this.size, null);
+        Arrays.fill(this.values, 0, this.size, null);
+
+        this.size = 0;
+    }
+
+    private boolean matches(int index, @Nullable Pointer device, @Nullable Pointer object, String key) {
+        return peer(this.devices[index]) == peer(device) && peer(this.objects[index]) == peer(object) && this.keys[index].equals(key);
+    }
+
+    private static long peer(@Nullable Pointer pointer) {
+        return pointer == null ? 0 : Pointer.nativeValue(pointer);
+    }
+
+    /**
+     * Rebuilds the hash table with the given capacity from the retained rows.
+     */
+    private void rehash(int capacity) {
+        this.table = new long[capacity];
+        this.indices = new int[capacity];
+        this.mask = capacity - 1;
+
+        for (int i = 0; i < this.size; ++i) {
+            final long hash = this.hashes[i];
+
+            int slot = (int) (hash ^ (hash >>> 32)) & this.mask;
+
+            while (this.table[slot] != 0) {
+                slot = (slot + 1) & this.mask;
+            }
+
+            this.table[slot] = hash;
+            this.indices[slot] = i;
+        }
+    }
+}
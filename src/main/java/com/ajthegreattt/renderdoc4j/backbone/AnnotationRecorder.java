@@ -0,0 +1,250 @@
+package com.ajthegreattt.renderdoc4j.backbone;
+
+import com.ajthegreattt.renderdoc4j.annotations.RenderDocAnnotationTypes;
+import com.ajthegreattt.renderdoc4j.annotations.RenderDocAnnotationValue;
+import com.ajthegreattt.renderdoc4j.annotations.ReturnResult;
+import com.ajthegreattt.renderdoc4j.memory.NativeArena;
+import com.sun.jna.Pointer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Objects;
+
+/**
+ * Buffers command annotations on a recording thread, so that worker threads recording command buffers in parallel never call into RenderDoc (or contend on the {@link RenderDocAPI}) themselves.
+ *
+ * <pre>{@code
+ * // On a worker thread, while recording the command buffer
+ * recorder.record("pass", PASS_NAME);
+ * recorder.record("draws", RenderDocAnnotationTypes.UINT32.value(draws));
+ *
+ * // On the submission thread, right before the command buffer is submitted
+ * recorder.submit(queue);
+ * vkQueueSubmit(queue, ...);
+ * }</pre>
+ *
+ * <p>Every annotation is copied into the recorder's own native memory when it is recorded: the value's union (and string, if it has one) and the UTF-8 encoded key, which is encoded once per distinct key.
+ * Recording takes no locks and makes no native calls. {@link #submit(long)} then replays the annotations against the given queue, in the order they were recorded, passing the copied memory to RenderDoc directly.</p>
+ *
+ * <p>As they are set on the queue, the annotations are placed at the point of submission, and apply to the submitted work as a whole rather than to the individual commands they were recorded next to.
+ * RenderDoc only accepts command annotations on a command buffer while it is being recorded, and {@link #submit(long)} never touches the command buffer, so it does not need the command buffer's external synchronization.
+ * Annotations that must sit at a specific command should instead be set with {@link RenderDocAPI#setCommandAnnotation(long, String, RenderDocAnnotationValue) setCommandAnnotation(...)} on the recording thread.</p>
+ *
+ * <p>A recorder is confined to one thread at a time. It is meant to be recorded on a worker thread and then handed to the submission thread along with its command buffer,
+ * which must happen through the same synchronization that hands over the command buffer itself. Reuse recorders (e.g. by keeping one alongside each pooled command buffer),
+ * as a reused recorder does not allocate any native memory once it has seen its largest command buffer.</p>
+ *
+ * @see RenderDocAPI#newAnnotationRecorder()
+ */
+public final class AnnotationRecorder implements AutoCloseable {
+
+    private static final int UNION_SIZE = RenderDocLibrary.RENDERDOC_AnnotationValue.SIZE;
+
+    private static final int TYPE_OFFSET = UNION_SIZE;
+
+    private static final int WIDTH_OFFSET = TYPE_OFFSET + Integer.BYTES;
+
+    private static final int RECORD_SIZE = WIDTH_OFFSET + Integer.BYTES;
+
+    private final RenderDocAPI api;
+
+    /**
+     * Holds the records and copied strings, and is reset by every {@link #submit(long)} and {@link #reset()}.
+     */
+    private final NativeArena records = NativeArena.create("AnnotationRecorder Records");
+
+    /**
+     * Holds the encoded keys, which are kept across resets.
+     */
+    private final NativeArena keys = NativeArena.create("AnnotationRecorder Keys");
+
+    private final HashMap<String, Pointer> encodedKeys = new HashMap<>();
+
+    private final RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference scratchUnion = new RenderDocLibrary.RENDERDOC_AnnotationValue.ByReference();
+
+    private byte[] scratchBytes = new byte[Math.max(UNION_SIZE, 64)];
+
+    private long[] recordAddresses = new long[16];
+
+    private long[] keyAddresses = new long[16];
+
+    private int count;
+
+    /**
+     * The arguments of the native call, whose pointers are retargeted for every annotation rather than reallocated.
+     */
+    private final Object[] arguments = new Object[6];
+
+    private final Pointer keyPointer = new Pointer(0);
+
+    private final Pointer unionPointer = new Pointer(0);
+
+    /**
+     * Retargeted at each record while it is written, so that recording does not create a {@link Pointer} per annotation.
+     */
+    private final Pointer recordPointer = new Pointer(0);
+
+    private final Pointer stringPointer = new Pointer(0);
+
+    AnnotationRecorder(RenderDocAPI api) {
+        this.api = api;
+    }
+
+    /**
+     * Discards every annotation that has not been submitted.
+     *
+     * @return This {@link AnnotationRecorder}
+     */
+    public AnnotationRecorder reset() {
+        this.records.reset();
+        this.count = 0;
+
+        return this;
+    }
+
+    /**
+     * Copies an annotation into this recorder, to be set by {@link #submit(long)}.
+     *
+     * @param key             A dot separated path for the annotation. Must not be empty.
+     * @param annotationValue The value, or {@code null} to delete the annotation
+     * @return This {@link AnnotationRecorder}
+     */
+    public AnnotationRecorder record(@NotNull String key, @Nullable RenderDocAnnotationValue annotationValue) {
+        final Pointer encodedKey = encodeKey(key);
+
+        final long recordAddress = this.records.allocateAddress(RECORD_SIZE);
+
+        final Pointer record = this.recordPointer;
+        Pointer.nativeValue(record, recordAddress);
+
+        if (annotationValue == null) {
+            record.setInt(TYPE_OFFSET, RenderDocAnnotationTypes.EMPTY.value);
+            record.setInt(WIDTH_OFFSET, 0);
+        } else {
+            annotationValue.writeTo(this.scratchUnion);
+
+            this.scratchUnion.getPointer().read(0, this.scratchBytes, 0, UNION_SIZE);
+            record.write(0, this.scratchBytes, 0, UNION_SIZE);
+
+            if (annotationValue.annotationType == RenderDocAnnotationTypes.STRING) {
+                // The scratch union only keeps its string alive until its next write
+                record.setPointer(0, copyString(this.scratchUnion.getPointer().getPointer(0)));
+            }
+
+            record.setInt(TYPE_OFFSET, annotationValue.annotationType.value);
+            record.setInt(WIDTH_OFFSET, annotationValue.vectorLength);
+        }
+
+        if (this.count == this.recordAddresses.length) {
+            this.recordAddresses = Arrays.copyOf(this.recordAddresses, this.count * 2);
+            this.keyAddresses = Arrays.copyOf(this.keyAddresses, this.count * 2);
+        }
+
+        this.recordAddresses[this.count] = recordAddress;
+        this.keyAddresses[this.count] = Pointer.nativeValue(encodedKey);
+        ++this.count;
+
+        return this;
+    }
+
+    /**
+     * @return The number of annotations that were recorded and not submitted yet
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Sets every recorded annotation on the {@code queue}, in the order they were recorded, and then discards them.
+     * Call this on the thread that submits the command buffers, right before submitting the command buffer the annotations were recorded with.
+     *
+     * @param queue The handle of the queue the command buffer is about to be submitted to, e.g. a {@code VkQueue}
+     * @return The number of annotations that RenderDoc did not return {@link ReturnResult#SUCCESS} for
+     */
+    public int submit(long queue) {
+        final @Nullable Pointer queuePointer = this.api.apiObject(queue);
+
+        int failed = 0;
+
+        for (int i = 0; i < this.count; ++i) {
+            Pointer.nativeValue(this.keyPointer, this.keyAddresses[i]);
+            Pointer.nativeValue(this.unionPointer, this.recordAddresses[i]);
+
+            final int type = this.unionPointer.getInt(TYPE_OFFSET);
+            final int width = this.unionPointer.getInt(WIDTH_OFFSET);
+
+            final ReturnResult result = this.api.setCommandAnnotation(this.arguments, queuePointer, this.keyPointer, type, width,
+                    type == RenderDocAnnotationTypes.EMPTY.value ? null : this.unionPointer);
+
+            if (result != ReturnResult.SUCCESS) {
+                ++failed;
+            }
+        }
+
+        Arrays.fill(this.arguments, null);
+
+        this.records.reset();
+        this.count = 0;
+
+        return failed;
+    }
+
+    /**
+     * Frees the native memory of this recorder, discarding every annotation that has not been submitted.
+     */
+    @Override
+    public void close() {
+        this.count = 0;
+        this.encodedKeys.clear();
+
+        this.records.close();
+        this.keys.close();
+    }
+
+    private Pointer encodeKey(String key) {
+        final Pointer cached = this.encodedKeys.get(key);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        Objects.requireNonNull(key);
+
+        if (key.isEmpty()) {
+            throw new IllegalArgumentException("The key of an annotation must not be empty");
+        }
+
+        final byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+
+        final Pointer encoded = this.keys.allocate(bytes.length + 1);
+        encoded.write(0, bytes, 0, bytes.length);
+
+        this.encodedKeys.put(key, encoded);
+
+        return encoded;
+    }
+
+    private @Nullable Pointer copyString(@Nullable Pointer string) {
+        if (string == null) {
+            return null;
+        }
+
+        final int length = (int) string.indexOf(0, (byte) 0);
+
+        if (this.scratchBytes.length < length) {
+            this.scratchBytes = new byte[Math.max(length, this.scratchBytes.length * 2)];
+        }
+
+        string.read(0, this.scratchBytes, 0, length);
+
+        // Allocations are zeroed, so the copy is NUL-terminated
+        final Pointer copy = this.stringPointer;
+        Pointer.nativeValue(copy, this.records.allocateAddress(length + 1));
+        copy.write(0, this.scratchBytes, 0, length);
+
+        return copy;
+    }
+}
@@ -1,12 +1,22 @@
 package com.ajthegreattt.renderdoc4j.backbone;
 
 import com.ajthegreattt.renderdoc4j.options.overlay.RenderDocOverlayBit;
+import com.ajthegreattt.renderdoc4j.ring.CaptureRingReader;
+import com.ajthegreattt.renderdoc4j.ring.CaptureRingWriter;
 import com.ajthegreattt.renderdoc4j.util.CaptureListener;
+import com.sun.jna.Library;
 import com.sun.jna.Native;
+import com.sun.jna.NativeLibrary;
+import com.sun.jna.Platform;
+import com.sun.jna.Pointer;
+import com.sun.jna.WString;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -24,6 +34,8 @@ public class Builder {
 
     public static final int DEFAULT_MAX_FILE_PATH_LENGTH = -1;
 
+    private static final Path PROC_SELF_MAPS = Paths.get("/proc/self/maps");
+
     final ArrayList<CaptureListener> captureListeners = new ArrayList<>(3);
 
     final RenderDocAPIVersion version;
@@ -38,8 +50,31 @@ public class Builder {
 
     int maxFilePathLength = DEFAULT_MAX_FILE_PATH_LENGTH;
 
+    StartupMode startupMode = StartupMode.EAGER;
+
+    LibrarySource librarySource;
+
+    boolean annotationDeduplication;
+
+    boolean annotationGating;
+
+    int renderThreadQueueCapacity = 256;
+
+    int objectHandleCacheSize = 4096;
+
+    private boolean attachToInjectedLibrary;
+
     private String sharedLibraryName = "renderdoc";
 
+    /**
+     * A resource packaged inside a jar, which is only extracted to the {@link #sharedLibraryCacheDirectory} by {@link #getLib()}. {@code null} if there is none.
+     */
+    private URL sharedLibraryResource;
+
+    private String sharedLibraryResourceFileName;
+
+    private Path sharedLibraryCacheDirectory = SharedLibraryCache.DEFAULT_DIRECTORY;
+
     Builder(RenderDocAPIVersion version) {
         this.version = version;
     }
@@ -93,17 +128,23 @@ public class Builder {
         }
 
         this.sharedLibraryName = absolutePath.toString();
+        this.sharedLibraryResource = null;
 
         return this;
     }
 
     /**
      * Specifies the name and (optionally) the directory to where your RenderDoc shared library file is stored in your programs {@code resources} folder. The {@link ClassLoader#getSystemClassLoader() System Class Loader} is used to search for this resource file.
+     *
+     * <p>If the resource is packaged inside a jar, it is extracted once into a per-user cache directory named by the library's content hash, and reused from there on later launches.
+     * See {@link Builder#withSharedLibraryCacheDirectory(Path)} for where that directory is. The extraction happens when the {@link RenderDocAPI} is {@link Builder#build() built},
+ * and is skipped entirely if an injected library with the resource's file name is attached to instead.</p>
      *
      * @param resourceFileName The file name of the resource in this program's resources folder, including its file extension that needs to be loaded. The rules of the JNA {@link com.sun.jna.NativeLibrary NativeLibrary} must be followed.
      * @return This {@link Builder Builder}
      * @throws NullPointerException If the resource cannot be found
      * @see Builder#withAbsoluteSharedLibraryPath(Path)
+     * @see Builder#withSharedLibraryCacheDirectory(Path)
      */
     public Builder withSharedLibraryResource(String resourceFileName) {
         final URL resource = Objects.requireNonNull(ClassLoader.getSystemClassLoader()
@@ -111,13 +152,32 @@ public class Builder {
                 "Could not find the shared library [" + resourceFileName + "] for RenderDoc. " +
                         "Please be advised that the resource name must include the extension of the file, *if* the file has an extension"));
 
-        try {
-            this.sharedLibraryName = Paths.get(resource.toURI()).toAbsolutePath().toString();
-        } catch (URISyntaxException e) {
-            throw new RuntimeException("Could not convert the resource's URL to a URI to provide it to JNA", e);
+        if ("file".equals(resource.getProtocol())) {
+            try {
+                this.sharedLibraryName = Paths.get(resource.toURI()).toAbsolutePath().toString();
+                this.sharedLibraryResource = null;
+            } catch (URISyntaxException e) {
+                throw new RuntimeException("Could not convert the resource's URL to a URI to provide it to JNA", e);
+            }
+        } else {
+            this.sharedLibraryResource = resource;
+            this.sharedLibraryResourceFileName = resourceFileName.substring(resourceFileName.lastIndexOf('/') + 1);
         }
 
+        return this;
+    }
 
+    /**
+     * Specifies the directory that shared library resources packaged inside a jar are extracted to by {@link Builder#withSharedLibraryResource(String)}.
+     *
+     * <p>By default, this is {@code ~/.renderdoc4j/natives}. This method may be called before or after {@link Builder#withSharedLibraryResource(String)}.</p>
+     *
+     * @param cacheDirectory The directory that extracted libraries will be cached in
+     * @return This {@link Builder Builder}
+     * @see Builder#withSharedLibraryResource(String)
+     */
+    public Builder withSharedLibraryCacheDirectory(@NotNull Path cacheDirectory) {
+        this.sharedLibraryCacheDirectory = Objects.requireNonNull(cacheDirectory);
         return this;
     }
 
@@ -158,6 +218,24 @@ public class Builder {
      */
     public Builder withSharedLibraryName(String sharedLibraryName) {
         this.sharedLibraryName = sharedLibraryName;
+        this.sharedLibraryResource = null;
+        return this;
+    }
+
+    /**
+     * Attempts to bind to a RenderDoc instance that is already injected into the current process (e.g. when the program was launched from the RenderDoc UI) before loading the shared library from disk.
+     *
+     * <p>{@code RENDERDOC_GetAPI} is first resolved from the symbols of the current process. If that fails, the configured shared library is then looked up among the libraries that are already loaded, without loading it:
+     * on Linux by reading the memory mappings of the process, and on Windows with {@code GetModuleHandleW}. On other platforms (e.g. macOS), only the symbols of the current process are searched.
+     * Only if both fail is the shared library loaded as usual.</p>
+     *
+     * <p>This avoids a second {@code dlopen} and its file system search, and guarantees that the API is bound to the instance that actually hooked the Graphics API.</p>
+     *
+     * @return This {@link Builder Builder}
+     * @see RenderDocAPI#getLibrarySource()
+     */
+    public Builder withAttachToInjectedLibrary() {
+        this.attachToInjectedLibrary = true;
         return this;
     }
 
@@ -209,6 +287,21 @@ public class Builder {
         return this;
     }
 
+    /**
+     * Specifies when the function pointers of the underlying RenderDoc API are resolved.
+     *
+     * <p>By default, this is {@link StartupMode#EAGER}, which resolves all of them during {@link Builder#build()}.
+     * If startup time matters to you, {@link StartupMode#LAZY} or {@link StartupMode#WARM_UP} will move that cost off of the startup path.</p>
+     *
+     * @param startupMode The {@link StartupMode} you would like to use
+     * @return This {@link Builder Builder}
+     * @see StartupMode
+     */
+    public Builder withStartupMode(@NotNull StartupMode startupMode) {
+        this.startupMode = Objects.requireNonNull(startupMode);
+        return this;
+    }
+
     /**
      * Specifies the maximum length in characters (bytes) that you would like to allocate for the file name/path.
      * This is necessary due to the functionality of the C language.
@@ -246,6 +339,110 @@ public class Builder {
         return this;
     }
 
+    /**
+     * Makes {@link RenderDocAPI#setObjectAnnotation(RenderDocLibrary.RENDERDOC_DevicePointer, com.sun.jna.Pointer, String, com.ajthegreattt.renderdoc4j.annotations.RenderDocAnnotationValue) setObjectAnnotation(...)}
+     * skip the native call when the same value was already sent for the same device, object and key, and return {@link com.ajthegreattt.renderdoc4j.annotations.ReturnResult#SUCCESS} instead.
+     *
+     * <p>This lets you annotate every object every frame while only the annotations that changed reach RenderDoc. The remembered values are forgotten whenever a capture starts
+     * ({@link RenderDocAPI#startFrameCapture()}, or a {@link RenderDocAPI#frameBoundary()} during which a frame is being captured), so every capture still receives all of them.</p>
+     *
+     * <p>Command annotations are never deduplicated, as they annotate a point in a command stream rather than an object.</p>
+     *
+     * @return This {@link Builder Builder}
+     * @see RenderDocAPI#resetAnnotationDeduplication()
+     */
+    public Builder withAnnotationDeduplication() {
+        this.annotationDeduplication = true;
+        return this;
+    }
+
+    /**
+     * Makes the annotation functions near-free no-ops unless a capture is in progress or about to start.
+     *
+     * <p>The gate is open while a capture is {@link RenderDocAPI#startFrameCapture() started} manually, from a {@link RenderDocAPI#triggerCapture() triggered} capture until the next {@link RenderDocAPI#frameBoundary()},
+     * and for every frame that {@link RenderDocAPI#frameBoundary()} sees being captured (which includes captures made with the capture keys). {@link RenderDocAPI#frameBoundary()} <b>must</b> therefore be called once per frame.</p>
+     *
+     * <p>The latest value of every object annotation is retained while the gate is closed, and all of them are replayed whenever a capture starts, so captures still contain every object annotation.
+     * Retained values are not copied, so prefer {@link com.ajthegreattt.renderdoc4j.annotations.RenderDocAnnotationValue#freeze() frozen} values over vector values whose arrays are modified later.
+     * Command annotations made while the gate is closed are dropped, as they only mean something at their point in a captured command stream.
+     * Call {@link RenderDocAPI#forgetObjectAnnotations(long)} when an annotated object is destroyed, so that its annotations are not replayed onto a new object that reuses its handle.</p>
+     *
+     * @return This {@link Builder Builder}
+     * @see RenderDocAPI#isAnnotationGateOpen()
+     */
+    public Builder withAnnotationGating() {
+        this.annotationGating = true;
+        return this;
+    }
+
+    /**
+     * Specifies the number of command slots in the {@link RenderDocAPI#renderThreadQueue()}, which is {@code 256} by default.
+     * The slots are allocated once, and commands are rejected while all of them wait to be drained.
+     *
+     * @param capacity The number of command slots, which is rounded up to the next power of two
+     * @return This {@link Builder Builder}
+     * @throws IllegalArgumentException If {@code capacity} is less than {@code 1} or more than {@code 2^30}
+     * @see RenderThreadQueue
+     */
+    public Builder withRenderThreadQueueCapacity(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("The capacity of the render thread queue must be between 1 and 2^30");
+        }
+
+        this.renderThreadQueueCapacity = capacity;
+        return this;
+    }
+
+    /**
+     * Specifies the number of {@link com.sun.jna.Pointer Pointer} wrappers that are cached for the {@code long} object, queue and command buffer handles passed to the annotation functions,
+     * which is {@code 4096} by default. Handles that are not cached allocate a new wrapper on every call, so raise this if more distinct handles than that are annotated every frame.
+     *
+     * @param size The number of cached wrappers, which is rounded up to the next power of two
+     * @return This {@link Builder Builder}
+     * @throws IllegalArgumentException If {@code size} is less than {@code 1} or more than {@code 2^30}
+     * @see RenderDocAPI#setObjectAnnotation(long, String, com.ajthegreattt.renderdoc4j.annotations.RenderDocAnnotationValue)
+     */
+    public Builder withObjectHandleCacheSize(int size) {
+        if (size < 1 || size > 1 << 30) {
+            throw new IllegalArgumentException("The size of the object handle cache must be between 1 and 2^30");
+        }
+
+        this.objectHandleCacheSize = size;
+        return this;
+    }
+
+    /**
+     * Publishes every {@link FrameCapture} into a memory-mapped ring buffer file, which other processes on the same machine can read with a {@link CaptureRingReader} without locks or system calls.
+     *
+     * <p>This is a shorthand for {@link Builder#addCaptureListener(CaptureListener) adding} a {@link CaptureRingWriter} with its default capacity and slot size.
+     * Like any other {@link CaptureListener}, captures are only published when {@link RenderDocAPI#updateCaptureListeners()} is called.</p>
+     *
+     * @param ringFile The ring buffer file, which is created (or recreated) immediately
+     * @return This {@link Builder Builder}
+     * @see CaptureRingWriter
+     * @see CaptureRingReader
+     */
+    public Builder withCaptureRing(@NotNull Path ringFile) {
+        try {
+            return addCaptureListener(CaptureRingWriter.create(ringFile));
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create the capture ring [" + ringFile + "]", e);
+        }
+    }
+
+    /**
+     * Records every {@link FrameCapture} into the {@code history}, which keeps them in compact columns for the rest of the session.
+     *
+     * <p>This is a shorthand for {@link Builder#addCaptureListener(CaptureListener) adding} the {@link CaptureHistory}, so captures are only recorded when {@link RenderDocAPI#updateCaptureListeners()} is called.</p>
+     *
+     * @param history The {@link CaptureHistory} to record into
+     * @return This {@link Builder Builder}
+     * @see CaptureHistory
+     */
+    public Builder withCaptureHistory(@NotNull CaptureHistory history) {
+        return addCaptureListener(history);
+    }
+
     /**
      * If the {@link RenderDocAPI#INSTANCE Instance} is not built already, this method will build it with the configured settings, and return it.
      *
@@ -262,6 +459,127 @@ public class Builder {
     }
 
     RenderDocLibrary getLib() {
+        if (this.attachToInjectedLibrary) {
+            try {
+                NativeLibrary.getProcess().getFunction("RENDERDOC_GetAPI");
+
+                this.librarySource = LibrarySource.CURRENT_PROCESS;
+
+                return Native.load(null, RenderDocLibrary.class);
+            } catch (UnsatisfiedLinkError ignored) {
+                // Not exported to the process' global namespace
+            }
+
+            // An injected library is found by the resource's own file name, as it is only extracted (under a cache path) when it has to be loaded from disk
+            final String loadedPath = findLoadedLibrary(this.sharedLibraryResource != null ? this.sharedLibraryResourceFileName : this.sharedLibraryName);
+
+            if (loadedPath != null) {
+                this.librarySource = LibrarySource.ALREADY_LOADED;
+
+                // Opening a path that is already mapped only increments its reference count
+                return Native.load(loadedPath, RenderDocLibrary.class);
+            }
+        }
+
+        if (this.sharedLibraryResource != null) {
+            try {
+                this.sharedLibraryName = SharedLibraryCache.extract(this.sharedLibraryResource, this.sharedLibraryResourceFileName, this.sharedLibraryCacheDirectory).toString();
+                this.sharedLibraryResource = null;
+            } catch (IOException e) {
+                throw new RuntimeException("Could not extract the shared library [" + this.sharedLibraryResourceFileName + "] to provide it to JNA", e);
+            }
+        }
+
+        this.librarySource = LibrarySource.LOADED;
+
         return Native.load(this.sharedLibraryName, RenderDocLibrary.class);
     }
+
+    /**
+     * An {@code RTLD_NOLOAD}-style probe for the configured shared library, which reads the memory mappings of the current process rather than calling {@code dlopen},
+     * since JNA can not report a failed {@code RTLD_NOLOAD} open safely.
+     *
+     * @param name The name or path of the shared library, in any of the forms accepted by {@link Builder#withSharedLibraryName(String)}
+     * @return The absolute path of the shared library if it is already mapped into the current process, or {@code null} if it is not (or the platform does not expose its mappings)
+     */
+    private static String findLoadedLibrary(String name) {
+        if (Platform.isWindows()) {
+            return findLoadedModule(name);
+        }
+
+        if (!Platform.isLinux() || !Files.isReadable(PROC_SELF_MAPS)) {
+            return null;
+        }
+
+        final boolean isPath = name.indexOf('/') >= 0;
+        final String mappedName = System.mapLibraryName(name);
+
+        try (BufferedReader reader = Files.newBufferedReader(PROC_SELF_MAPS, StandardCharsets.UTF_8)) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                final int pathStart = line.indexOf('/');
+
+                if (pathStart < 0) {
+                    continue;
+                }
+
+                final String path = line.substring(pathStart);
+
+                if (isPath) {
+                    if (path.equals(name)) {
+                        return path;
+                    }
+
+                    continue;
+                }
+
+                final String fileName = path.substring(path.lastIndexOf('/') + 1);
+
+                if (fileName.equals(name) || fileName.equals(mappedName) || fileName.startsWith(mappedName + '.')) {
+                    return path;
+                }
+            }
+        } catch (IOException ignored) {
+            // Treated as not loaded
+        }
+
+        return null;
+    }
+
+    /**
+     * The Windows counterpart of {@link #findLoadedLibrary(String)}, as {@code GetModuleHandleW} never loads a module, and does not increment its reference count.
+     *
+     * @param name The name or path of the module
+     * @return The absolute path of the module if it is already loaded into the current process, or {@code null} if it is not
+     */
+    private static String findLoadedModule(String name) {
+        try {
+            final Kernel32 kernel32 = Native.load("kernel32", Kernel32.class);
+
+            // Paths must use backslashes, and a missing extension defaults to .dll
+            final Pointer module = kernel32.GetModuleHandleW(new WString(name.replace('/', '\\')));
+
+            if (module == null) {
+                return null;
+            }
+
+            final char[] path = new char[32768];
+            final int length = kernel32.GetModuleFileNameW(module, path, path.length);
+
+            return length > 0 && length < path.length ? new String(path, 0, length) : null;
+        } catch (UnsatisfiedLinkError ignored) {
+            return null;
+        }
+    }
+
+    /**
+     * The two {@code kernel32} functions used by {@link #findLoadedModule(String)}, declared here rather than depending on {@code jna-platform}.
+     */
+    interface Kernel32 extends Library {
+
+        Pointer GetModuleHandleW(WString moduleName);
+
+        int GetModuleFileNameW(Pointer module, char[] fileName, int size);
+    }
 }
@@ -0,0 +1,104 @@
+package com.ajthegreattt.renderdoc4j.backbone;
+
+/**
+ * Describes which functions are available in the {@link RenderDocAPIVersion} that was negotiated with the RenderDoc shared library.
+ *
+ * <p>Functions that are not available are bound to constant no-ops, so calling them is always safe, but has no effect:</p>
+ * <ul>
+ *     <li>Functions that return a {@code boolean} return {@code false}, and functions that return a {@code PID} return {@code 0}.</li>
+ *     <li>The annotation functions return {@link com.ajthegreattt.renderdoc4j.annotations.ReturnResult#ANNOTATION_NOT_RECOGNIZED ANNOTATION_NOT_RECOGNIZED}.</li>
+ * </ul>
+ *
+ * @see RenderDocAPI#getCapabilities()
+ */
+public final class Capabilities {
+
+    private final RenderDocAPIVersion version;
+
+    private final boolean triggerMultiFrameCapture;
+    private final boolean captureFileComments;
+    private final boolean discardFrameCapture;
+    private final boolean showReplayUI;
+    private final boolean captureTitle;
+    private final boolean annotations;
+
+    Capabilities(RenderDocAPIVersion version) {
+        this.version = version;
+        this.triggerMultiFrameCapture = isAtLeast(RenderDocAPIVersion.Version_1_1_0);
+        this.captureFileComments = isAtLeast(RenderDocAPIVersion.Version_1_2_0);
+        this.discardFrameCapture = isAtLeast(RenderDocAPIVersion.Version_1_4_0);
+        this.showReplayUI = isAtLeast(RenderDocAPIVersion.Version_1_5_0);
+        this.captureTitle = isAtLeast(RenderDocAPIVersion.Version_1_6_0);
+        this.annotations = isAtLeast(RenderDocAPIVersion.Version_1_7_0);
+    }
+
+    /**
+     * @return The negotiated {@link RenderDocAPIVersion} these capabilities describe
+     */
+    public RenderDocAPIVersion version() {
+        return this.version;
+    }
+
+    /**
+     * @param version The version to compare against
+     * @return {@code true} if the negotiated {@link RenderDocAPIVersion} is the given {@code version} or newer
+     */
+    public boolean isAtLeast(RenderDocAPIVersion version) {
+        return this.version.compareTo(version) >= 0;
+    }
+
+    /**
+     * @return {@code true} if {@link RenderDocAPI#triggerMultiFrameCapture(int)} is available (RenderDoc API 1.1.0)
+     */
+    public boolean supportsTriggerMultiFrameCapture() {
+        return this.triggerMultiFrameCapture;
+    }
+
+    /**
+     * @return {@code true} if {@link RenderDocAPI#setCaptureFileComments(String, String)} is available (RenderDoc API 1.2.0)
+     */
+    public boolean supportsCaptureFileComments() {
+        return this.captureFileComments;
+    }
+
+    /**
+     * @return {@code true} if {@link RenderDocAPI#discardFrameCapture()} is available (RenderDoc API 1.4.0)
+     */
+    public boolean supportsDiscardFrameCapture() {
+        return this.discardFrameCapture;
+    }
+
+    /**
+     * @return {@code true} if {@link RenderDocAPI#showReplayUI()} is available (RenderDoc API 1.5.0)
+     */
+    public boolean supportsShowReplayUI() {
+        return this.showReplayUI;
+    }
+
+    /**
+     * @return {@code true} if {@link RenderDocAPI#setCaptureTitle(String)} is available (RenderDoc API 1.6.0)
+     */
+    public boolean supportsCaptureTitle() {
+        return this.captureTitle;
+    }
+
+    /**
+     * @return {@code true} if {@link RenderDocAPI#setObjectAnnotation(com.sun.jna.Pointer, String, com.ajthegreattt.renderdoc4j.annotations.RenderDocAnnotationValue) setObjectAnnotation}
+     * and {@link RenderDocAPI#setCommandAnnotation(com.sun.jna.Pointer, String, com.ajthegreattt.renderdoc4j.annotations.RenderDocAnnotationValue) setCommandAnnotation} are available (RenderDoc API 1.7.0)
+     */
+    public boolean supportsAnnotations() {
+        return this.annotations;
+    }
+
+    @Override
+    public String toString() {
+        return "Capabilities[" +
+                "version=" + version + ", " +
+                "triggerMultiFrameCapture=" + triggerMultiFrameCapture + ", " +
+                "captureFileComments=" + captureFileComments + ", " +
+                "discardFrameCapture=" + discardFrameCapture + ", " +
+                "showReplayUI=" + showReplayUI + ", " +
+                "captureTitle=" + captureTitle + ", " +
+                "annotations=" + annotations + ']';
+    }
+}
@@ -0,0 +1,241 @@
+package com.ajthegreattt.renderdoc4j.backbone;
+
+import com.ajthegreattt.renderdoc4j.util.CaptureListener;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * An in-memory history of {@link FrameCapture}s, stored column by column so that it stays small and fast to query however many captures a session makes.
+ *
+ * <p>Capture indices and timestamps are kept in primitive arrays, and the file names are kept as UTF-8 bytes in a single shared byte region.
+ * No {@link FrameCapture} or {@link String} is retained: every {@link FrameCapture} returned by this history is a flyweight view over one of its rows, which decodes its {@link FrameCapture#fileName() file name} only when asked for it.</p>
+ *
+ * <p>As RenderDoc hands out captures in order, the timestamp column is normally sorted, and {@link #between(long, long)} finds its range with a binary search.
+ * Should a timestamp ever go backwards (e.g. because the system clock was changed), lookups fall back to a linear scan.</p>
+ *
+ * <p>A {@link CaptureHistory} is a {@link CaptureListener}, so it is filled by {@link RenderDocAPI#updateCaptureListeners()} once it has been {@link Builder#withCaptureHistory(CaptureHistory) added} to the API. It is safe to query from any thread.</p>
+ *
+ * <pre>{@code
+ * CaptureHistory history = new CaptureHistory();
+ * RenderDocAPI api = RenderDocAPI.builder().withCaptureHistory(history).build();
+ *
+ * List<FrameCapture> lastMinute = history.between(now - 60, now + 1);
+ * }</pre>
+ */
+public final class CaptureHistory implements CaptureListener {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * The average number of bytes that is reserved for each file name up front.
+     */
+    private static final int DEFAULT_PATH_LENGTH = 96;
+
+    private int[] indices;
+
+    private long[] timestamps;
+
+    /**
+     * The file name of row {@code i} is stored in {@code paths[pathOffsets[i]]} to {@code paths[pathOffsets[i + 1]]} (exclusive).
+     */
+    private int[] pathOffsets;
+
+    private byte[] paths;
+
+    private int size;
+
+    private boolean indicesSorted = true;
+
+    private boolean timestampsSorted = true;
+
+    public CaptureHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity The number of captures to reserve space for up front
+     * @throws IllegalArgumentException If {@code initialCapacity} is negative
+     */
+    public CaptureHistory(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("The initial capacity must not be negative");
+        }
+
+        this.indices = new int[initialCapacity];
+        this.timestamps = new long[initialCapacity];
+        this.pathOffsets = new int[initialCapacity + 1];
+        this.paths = new byte[initialCapacity * DEFAULT_PATH_LENGTH];
+    }
+
+    /**
+     * Adds the {@code frameCapture} to this history.
+     *
+     * @see CaptureHistory#add(FrameCapture)
+     */
+    @Override
+    public void process(FrameCapture frameCapture) {
+        add(frameCapture);
+    }
+
+    /**
+     * Copies the {@code capture} into a new row of this history.
+     *
+     * @param capture The {@link FrameCapture} to add
+     * @return A view over the new row
+     * @throws IllegalStateException If the file names of this history would exceed 2 GiB
+     */
+    public synchronized FrameCapture add(@NotNull FrameCapture capture) {
+        final byte[] path = capture.fileName().getBytes(StandardCharsets.UTF_8);
+
+        final int row = this.size;
+        final int pathOffset = this.pathOffsets[row];
+
+        if (pathOffset + (long) path.length > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("The file names of the capture history exceed 2 GiB");
+        }
+
+        if (row == this.indices.length) {
+            final int capacity = Math.max(DEFAULT_CAPACITY, row + (row >> 1));
+
+            this.indices = Arrays.copyOf(this.indices, capacity);
+            this.timestamps = Arrays.copyOf(this.timestamps, capacity);
+            this.pathOffsets = Arrays.copyOf(this.pathOffsets, capacity + 1);
+        }
+
+        if (pathOffset + path.length > this.paths.length) {
+            this.paths = Arrays.copyOf(this.paths, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(pathOffset + (long) path.length, this.paths.length + (long) (this.paths.length >> 1))));
+        }
+
+        if (row > 0) {
+            this.indicesSorted &= capture.index() > this.indices[row - 1];
+            this.timestampsSorted &= capture.timestamp() >= this.timestamps[row - 1];
+        }
+
+        this.indices[row] = capture.index();
+        this.timestamps[row] = capture.timestamp();
+
+        System.arraycopy(path, 0, this.paths, pathOffset, path.length);
+        this.pathOffsets[row + 1] = pathOffset + path.length;
+
+        this.size = row + 1;
+
+        return view(row);
+    }
+
+    /**
+     * @return The number of captures in this history
+     */
+    public synchronized int size() {
+        return this.size;
+    }
+
+    /**
+     * @param row The row, from {@code 0} (the oldest capture) to {@link #size()} (exclusive)
+     * @return A view over the capture in the {@code row}
+     * @throws IndexOutOfBoundsException If there is no such row
+     */
+    public synchronized FrameCapture get(int row) {
+        if (row < 0 || row >= this.size) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + this.size);
+        }
+
+        return view(row);
+    }
+
+    /**
+     * @return A view over the newest capture, if there is one
+     */
+    public synchronized Optional<FrameCapture> latest() {
+        return this.size == 0 ? Optional.empty() : Optional.of(view(this.size - 1));
+    }
+
+    /**
+     * @param captureIndex The {@link FrameCapture#index() index} of the capture
+     * @return A view over the capture with that index, if it is in this history
+     */
+    public synchronized Optional<FrameCapture> byIndex(int captureIndex) {
+        if (this.indicesSorted) {
+            final int row = Arrays.binarySearch(this.indices, 0, this.size, captureIndex);
+
+            return row >= 0 ? Optional.of(view(row)) : Optional.empty();
+        }
+
+        for (int row = this.size - 1; row >= 0; row--) {
+            if (this.indices[row] == captureIndex) {
+                return Optional.of(view(row));
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * @param fromTimestamp The earliest {@link FrameCapture#timestamp() timestamp} (inclusive)
+     * @param toTimestamp   The latest {@link FrameCapture#timestamp() timestamp} (exclusive)
+     * @return Views over the captures that were taken in the given range, from oldest to newest
+     */
+    public synchronized List<FrameCapture> between(long fromTimestamp, long toTimestamp) {
+        if (toTimestamp <= fromTimestamp) {
+            return Collections.emptyList();
+        }
+
+        final List<FrameCapture> captures;
+
+        if (this.timestampsSorted) {
+            final int from = lowerBound(fromTimestamp);
+            final int to = lowerBound(toTimestamp);
+
+            captures = new ArrayList<>(to - from);
+
+            for (int row = from; row < to; row++) {
+                captures.add(view(row));
+            }
+        } else {
+            captures = new ArrayList<>();
+
+            for (int row = 0; row < this.size; row++) {
+                if (this.timestamps[row] >= fromTimestamp && this.timestamps[row] < toTimestamp) {
+                    captures.add(view(row));
+                }
+            }
+        }
+
+        return Collections.unmodifiableList(captures);
+    }
+
+    synchronized String fileName(int row) {
+        final int offset = this.pathOffsets[row];
+
+        return new String(this.paths, offset, this.pathOffsets[row + 1] - offset, StandardCharsets.UTF_8);
+    }
+
+    private FrameCapture view(int row) {
+        return new FrameCapture(this, row, this.indices[row], this.timestamps[row]);
+    }
+
+    /**
+     * @return The first row whose timestamp is at least {@code timestamp}, or {@link #size} if there is none
+     */
+    private int lowerBound(long timestamp) {
+        int low = 0;
+        int high = this.size;
+
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+
+            if (this.timestamps[middle] < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+}
@@ -0,0 +1,175 @@
+package com.ajthegreattt.renderdoc4j.backbone;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Keeps track of the captures that have been requested through the {@link CompletableFuture}-returning methods of the {@link RenderDocAPI}.
+ *
+ * <p>There are two kinds of requests:</p>
+ * <ul>
+ *     <li>A {@link CaptureScope} knows the exact index of its capture, and only ever gets the capture at that index.</li>
+ *     <li>A triggered request does not, as RenderDoc only captures at the next present. It gets the next captures (made after it was claimed) that no other request has claimed,
+ *     in the order the requests were made.</li>
+ * </ul>
+ *
+ * <p>The futures are completed from {@link RenderDocAPI#updateCaptureListeners()}, which already checks the capture count once per call,
+ * so callers never have to poll the underlying RenderDoc API themselves.
+ * A request that has not received all of its captures after {@value #TIMEOUT_FRAMES} frames more than it expected (counted by {@link RenderDocAPI#frameBoundary()})
+ * completes exceptionally with a {@link TimeoutException}, so that a lost trigger can not take the captures of the requests made after it.
+ * Cancelling a future withdraws its request as well.</p>
+ *
+ * <p><b>Note:</b> Captures that are made by other means (e.g. the capture keys) while a triggered request is pending will be handed to that request instead.</p>
+ */
+final class CaptureRequests {
+
+    /**
+     * The number of frames a request may wait on top of the number of captures it expects.
+     */
+    static final int TIMEOUT_FRAMES = 30;
+
+    private final ArrayDeque<Request> scoped = new ArrayDeque<>(2);
+
+    private final ArrayDeque<Request> triggered = new ArrayDeque<>(4);
+
+    /**
+     * Claims the next {@code count} captures that are made from now on, and that no other request has claimed.
+     *
+     * @param captureCount The current number of captures, as reported by the underlying RenderDoc API
+     * @param count        The number of captures that are expected
+     * @return A future that completes with the {@code count} {@link FrameCapture}s once all of them have been made
+     */
+    synchronized CompletableFuture<List<FrameCapture>> claim(int captureCount, int count) {
+        final Request request = new Request(captureCount, count);
+
+        this.triggered.addLast(request);
+
+        return request.future;
+    }
+
+    /**
+     * Claims the capture at exactly {@code index}, which may already have been made.
+     *
+     * @param index The index of the capture
+     * @return A future that completes with the single {@link FrameCapture} at {@code index}
+     */
+    synchronized CompletableFuture<List<FrameCapture>> claimExact(int index) {
+        final Request request = new Request(index, 1);
+
+        this.scoped.addLast(request);
+
+        return request.future;
+    }
+
+    /**
+     * @return {@code true} if there is at least one request waiting for its captures
+     */
+    synchronized boolean hasPending() {
+        prune();
+
+        return !this.scoped.isEmpty() || !this.triggered.isEmpty();
+    }
+
+    /**
+     * Hands a newly made capture to the request that claimed its exact index, or otherwise to the oldest triggered request that is still waiting.
+     *
+     * @param index   The index of the capture
+     * @param capture The processed capture, or {@code null} if it could not be processed
+     */
+    synchronized void offer(int index, FrameCapture capture) {
+        Request owner = null;
+
+        for (Request request : this.scoped) {
+            if (request.firstIndex == index && !request.future.isDone()) {
+                owner = request;
+                break;
+            }
+        }
+
+        if (owner == null) {
+            for (Request request : this.triggered) {
+                if (index >= request.firstIndex && !request.future.isDone()) {
+                    owner = request;
+                    break;
+                }
+            }
+        }
+
+        if (owner != null) {
+            owner.accept(index, capture);
+        }
+
+        prune();
+    }
+
+    /**
+     * Counts down the frames every pending request may still wait, and fails the requests that have run out. Called once per {@link RenderDocAPI#frameBoundary()}.
+     */
+    synchronized void frameBoundary() {
+        expire(this.scoped);
+        expire(this.triggered);
+    }
+
+    private static void expire(ArrayDeque<Request> requests) {
+        final Iterator<Request> iterator = requests.iterator();
+
+        while (iterator.hasNext()) {
+            final Request request = iterator.next();
+
+            if (--request.framesLeft < 0) {
+                request.future.completeExceptionally(new TimeoutException("No capture was made for the request at index " + request.firstIndex + " within " + TIMEOUT_FRAMES + " frames"));
+            }
+
+            if (request.future.isDone()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void prune() {
+        this.scoped.removeIf(request -> request.future.isDone());
+        this.triggered.removeIf(request -> request.future.isDone());
+    }
+
+    private static final class Request {
+
+        /**
+         * The exact index of the capture for scoped requests, or the lowest index that may be handed to a triggered request.
+         */
+        private final int firstIndex;
+
+        private final FrameCapture[] captures;
+
+        private int received;
+
+        private int framesLeft;
+
+        private final CompletableFuture<List<FrameCapture>> future = new CompletableFuture<>();
+
+        private Request(int firstIndex, int count) {
+            this.firstIndex = firstIndex;
+            this.captures = new FrameCapture[count];
+            this.framesLeft = count + TIMEOUT_FRAMES;
+        }
+
+        private void accept(int index, FrameCapture capture) {
+            if (capture == null) {
+                this.future.completeExceptionally(new IllegalStateException("The capture at index " + index + " could not be processed"));
+                return;
+            }
+
+            this.captures[this.received] = capture;
+
+            if (++this.received == this.captures.length) {
+                final List<FrameCapture> list = new ArrayList<>(this.captures.length);
+                Collections.addAll(list, this.captures);
+                this.future.complete(Collections.unmodifiableList(list));
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.ajthegreattt.renderdoc4j.backbone;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A manually started capture that is ended when this scope is closed, meant to be used with a {@code try}-with-resources statement:
+ *
+ * <pre>{@code
+ * try (CaptureScope scope = api.beginCapture("Shadow Pass")) {
+ *     renderShadowPass();
+ *
+ *     scope.capture().thenAccept(capture -> upload(capture.fileName()));
+ * }
+ * }</pre>
+ *
+ * <p>Closing the scope calls {@link RenderDocAPI#endFrameCapture()}, or {@link RenderDocAPI#discardFrameCapture()} if {@link #discard()} was called beforehand.</p>
+ *
+ * <p>The {@link #capture()} future is completed from {@link RenderDocAPI#updateCaptureListeners()} once the capture has been written,
+ * so that method <b>must</b> still be called periodically.</p>
+ *
+ * @see RenderDocAPI#beginCapture(String)
+ * @see RenderDocAPI#updateCaptureListeners()
+ */
+public final class CaptureScope implements AutoCloseable {
+
+    /**
+     * {@code null} for the scopes of the {@link NoOpRenderDoc}, which have no capture to end.
+     */
+    private final @Nullable RenderDocAPI api;
+
+    private final CompletableFuture<FrameCapture> capture = new CompletableFuture<>();
+
+    private boolean discard;
+
+    private boolean closed;
+
+    CaptureScope(@Nullable RenderDocAPI api) {
+        this.api = api;
+    }
+
+    /**
+     * @return A future that completes with the {@link FrameCapture} once it has been written.
+     * It is cancelled if the capture was {@link #discard() discarded}, and completes exceptionally if the capture failed.
+     */
+    public CompletableFuture<FrameCapture> capture() {
+        return this.capture;
+    }
+
+    /**
+     * Marks this capture to be discarded rather than written to disk when this scope is closed.
+     *
+     * <p>If the negotiated {@link RenderDocAPIVersion} does not {@link Capabilities#supportsDiscardFrameCapture() support discarding}, the capture is ended instead, but {@link #capture()} is still cancelled.</p>
+     */
+    public void discard() {
+        this.discard = true;
+    }
+
+    /**
+     * Ends the capture, or discards it if {@link #discard()} was called. Calling this method more than once has no effect.
+     */
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+
+        if (this.api == null) {
+            this.capture.cancel(false);
+        } else if (this.discard && this.api.getCapabilities().supportsDiscardFrameCapture()) {
+            this.api.discardFrameCapture();
+            this.capture.cancel(false);
+        } else {
+            // RenderDoc writes the capture before EndFrameCapture returns, so its index is the capture count from before.
+            // It is claimed first, so that a pending triggered request can not take it in the meantime
+            final CompletableFuture<List<FrameCapture>> captures = this.api.awaitCapture(this.api.getNumCaptures());
+
+            if (!this.api.endFrameCapture()) {
+                captures.cancel(false);
+                this.capture.completeExceptionally(new IllegalStateException("The underlying RenderDoc API failed to end the capture"));
+                return;
+            }
+
+            if (this.discard) {
+                this.capture.cancel(false);
+                return;
+            }
+
+            captures.whenComplete((list, throwable) -> {
+                if (throwable != null) {
+                    this.capture.completeExceptionally(throwable);
+                } else {
+                    this.capture.complete(list.get(0));
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.ajthegreattt.renderdoc4j.backbone;
+
+import com.ajthegreattt.renderdoc4j.annotations.RenderDocAnnotationValue;
+import com.ajthegreattt.renderdoc4j.annotations.ReturnResult;
+import com.ajthegreattt.renderdoc4j.memory.NativeArena;
+import com.sun.jna.Pointer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A stack of nested scopes whose dot separated path is used as the key of {@link RenderDocAPI#setCommandAnnotation(long, String, RenderDocAnnotationValue) command annotations},
+ * so that commands show up under readable, nested labels in RenderDoc's Annotation Viewer.
+ *
+ * <pre>{@code
+ * CommandAnnotationScopes scopes = api.newCommandAnnotationScopes();
+ *
+ * scopes.push("frame").push("shadow").push("cascade2");
+ * scopes.annotate(commandBuffer, "opaque", DRAW_COUNT.value(draws)); // frame.shadow.cascade2.opaque
+ * scopes.pop().pop().pop();
+ * }</pre>
+ *
+ * <p>Every distinct chain of scopes is a node in a trie, which holds the chain's UTF-8 encoded, {@code NUL}-terminated key in native memory.
+ * A key is encoded only the first time its chain is seen. After that, pushing, popping and annotating only walk the trie and pass the cached key to RenderDoc, so no key strings are built.
+ * Combined with {@link RenderDocAnnotationValue#freeze() frozen} values, the Java side of an annotation allocates nothing. (JNA itself still copies the argument array of each native call.)</p>
+ *
+ * <p>Scope names must not contain a {@code .}, as RenderDoc would treat it as another level. The encoded keys are freed when this object is {@link #close() closed}.</p>
+ *
+ * <p>This class is not thread-safe. Use one instance per recording thread.</p>
+ *
+ * @see RenderDocAPI#newCommandAnnotationScopes()
+ */
+public final class CommandAnnotationScopes implements AutoCloseable {
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final RenderDocAPI api;
+
+    private final NativeArena arena = NativeArena.create("CommandAnnotationScopes");
+
+    private final Node root = new Node(null, "", null, 0);
+
+    /**
+     * The arguments of the native call, which are reused for every annotation.
+     */
+    private final Object[] arguments = new Object[6];
+
+    /**
+     * The UTF-8 bytes of a key that is being encoded, which are reused for every new node.
+     */
+    private byte[] scratch = new byte[128];
+
+    private Node current = this.root;
+
+    CommandAnnotationScopes(RenderDocAPI api) {
+        this.api = api;
+    }
+
+    /**
+     * Enters a scope nested within the current one.
+     *
+     * @param name The name of the scope, which must not be empty or contain a {@code .}
+     * @return This {@link CommandAnnotationScopes}
+     */
+    public CommandAnnotationScopes push(@NotNull String name) {
+        this.current = this.current.child(name, this);
+        return this;
+    }
+
+    /**
+     * Leaves the current scope.
+     *
+     * @return This {@link CommandAnnotationScopes}
+     * @throws IllegalStateException If no scope was pushed
+     */
+    public CommandAnnotationScopes pop() {
+        if (this.current == this.root) {
+            throw new IllegalStateException("There is no scope to pop");
+        }
+
+        this.current = this.current.parent;
+        return this;
+    }
+
+    /**
+     * @return The number of scopes that are currently pushed
+     */
+    public int depth() {
+        return this.current.depth;
+    }
+
+    /**
+     * @return The current path. This allocates a new {@link String}, and is meant for debugging.
+     */
+    public String path() {
+        return this.current.key == null ? "" : this.current.key.getString(0, StandardCharsets.UTF_8.name());
+    }
+
+    /**
+     * Sets a command annotation whose key is the current path.
+     *
+     * @param queueOrCommandBuffer The handle of the queue or command buffer, or {@code 0} where the API allows it (e.g. OpenGL)
+     * @param annotationValue      The value, preferably {@link RenderDocAnnotationValue#freeze() frozen}, or {@code null} to delete the annotation
+     * @return The result of {@link RenderDocAPI#setCommandAnnotation(long, String, RenderDocAnnotationValue)}
+     * @throws IllegalStateException If no scope was pushed
+     */
+    public ReturnResult annotate(long queueOrCommandBuffer, @Nullable RenderDocAnnotationValue annotationValue) {
+        if (this.current == this.root) {
+            throw new IllegalStateException("Can not annotate without a scope, as the key would be empty");
+        }
+
+        return this.api.setCommandAnnotation(this.arguments, queueOrCommandBuffer, this.current.key, annotationValue);
+    }
+
+    /**
+     * Sets a command annotation whose key is {@code name} nested within the current path, without pushing it.
+     *
+     * @param queueOrCommandBuffer The handle of the queue or command buffer, or {@code 0} where the API allows it (e.g. OpenGL)
+     * @param name                 The last part of the key, which must not be empty or contain a {@code .}
+     * @param annotationValue      The value, preferably {@link RenderDocAnnotationValue#freeze() frozen}, or {@code null} to delete the annotation
+     * @return The result of {@link RenderDocAPI#setCommandAnnotation(long, String, RenderDocAnnotationValue)}
+     */
+    public ReturnResult annotate(long queueOrCommandBuffer, @NotNull String name, @Nullable RenderDocAnnotationValue annotationValue) {
+        return this.api.setCommandAnnotation(this.arguments, queueOrCommandBuffer, this.current.child(name, this).key, annotationValue);
+    }
+
+    /**
+     * Pops every scope, and frees the native memory of all encoded keys.
+     */
+    @Override
+    public void close() {
+        this.current = this.root;
+        this.root.children = NO_CHILDREN;
+        this.root.childCount = 0;
+
+        Arrays.fill(this.arguments, null);
+
+        this.arena.close();
+    }
+
+    /**
+     * Encodes the key of a new child of {@code parent} into native memory.
+     */
+    private Pointer encode(Node parent, byte[] nameBytes, int length) {
+        final int parentLength = parent.key == null ? 0 : parent.length;
+        final int separator = parentLength == 0 ? 0 : 1;
+
+        if (this.scratch.length < length + 1) {
+            this.scratch = new byte[Math.max(length + 1, this.scratch.length * 2)];
+        }
+
+        if (parentLength > 0) {
+            parent.key.read(0, this.scratch, 0, parentLength);
+            this.scratch[parentLength] = '.';
+        }
+
+        System.arraycopy(nameBytes, 0, this.scratch, parentLength + separator, nameBytes.length);
+        this.scratch[length] = 0;
+
+        final Pointer key = this.arena.allocate(length + 1);
+        key.write(0, this.scratch, 0, length + 1);
+
+        return key;
+    }
+
+    private static final class Node {
+
+        private final @Nullable Node parent;
+
+        private final String name;
+
+        /**
+         * The encoded, {@code NUL}-terminated key, which is {@code null} for the root.
+         */
+        private final @Nullable Pointer key;
+
+        private final int length;
+
+        private final int depth;
+
+        private Node[] children = NO_CHILDREN;
+
+        private int childCount;
+
+        private Node(@Nullable Node parent, String name, @Nullable Pointer key, int length) {
+            this.parent = parent;
+            this.name = name;
+            this.key = key;
+            this.length = length;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+        }
+
+        private Node child(String name, CommandAnnotationScopes scopes) {
+            // Scope names are usually constants, so an identity check finds most children without comparing their contents
+            for (int i = 0; i < this.childCount; ++i) {
+                if (this.children[i].name == name) {
+                    return this.children[i];
+                }
+            }
+
+            for (int i = 0; i < this.childCount; ++i) {
+                if (this.children[i].name.equals(name)) {
+                    return this.children[i];
+                }
+            }
+
+            Objects.requireNonNull(name);
+
+            if (name.isEmpty() || name.indexOf('.') >= 0) {
+                throw new IllegalArgumentException("The scope name [" + name + "] must not be empty or contain a '.'");
+            }
+
+            final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+
+            final int length = (this.key == null ? 0 : this.length + 1) + nameBytes.length;
+
+            final Node child = new Node(this, name, scopes.encode(this, nameBytes, length), length);
+
+            if (this.childCount == this.children.length) {
+                this.children = Arrays.copyOf(this.children, Math.max(4, this.childCount * 2));
+            }
+
+            this.children[this.childCount++] = child;
+
+            return child;
+        }
+    }
+}
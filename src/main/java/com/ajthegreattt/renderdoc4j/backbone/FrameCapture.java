@@ -1,19 +1,27 @@
 package com.ajthegreattt.renderdoc4j.backbone;
 
+import org.jetbrains.annotations.Nullable;
+
 import java.util.Objects;
 
 /**
  * A POJO that stores all the information for a capture.
  *
+ * <p>A {@link FrameCapture} returned by a {@link CaptureHistory} is a flyweight view over one of its rows, which decodes its {@link #fileName()} from the history every time it is called rather than holding a {@link String}.</p>
+ *
  * @see RenderDocAPI#getCapture(int)
+ * @see CaptureHistory
  * @see RenderDocAPI#setCaptureFilePath
  * @see RenderDocAPI#getCaptureFilePath
  */
 public final class FrameCapture {
     private final int index;
-    private final String fileName;
+    private final @Nullable String fileName;
     private final long timestamp;
 
+    private final @Nullable CaptureHistory history;
+    private final int row;
+
     /**
      * @param index     The index of this capture, which is dependent upon the number of captures in the current session
      * @param fileName  The name and path to the capture file. This path may not be absolute depending upon the {@link RenderDocAPI#setCaptureFilePath}.
@@ -24,6 +32,19 @@ public final class FrameCapture {
         this.index = index;
         this.fileName = fileName;
         this.timestamp = timestamp;
+        this.history = null;
+        this.row = -1;
+    }
+
+    /**
+     * Creates a view over a row of the {@code history}, whose file name is decoded lazily.
+     */
+    FrameCapture(CaptureHistory history, int row, int index, long timestamp) {
+        this.index = index;
+        this.fileName = null;
+        this.timestamp = timestamp;
+        this.history = history;
+        this.row = row;
     }
 
     public int index() {
@@ -31,7 +52,7 @@ public final class FrameCapture {
     }
 
     public String fileName() {
-        return fileName;
+        return this.history != null ? this.history.fileName(this.row) : this.fileName;
     }
 
     public long timestamp() {
@@ -48,20 +69,20 @@ public final class FrameCapture {
         }
         FrameCapture that = (FrameCapture) obj;
         return this.index == that.index &&
-                Objects.equals(this.fileName, that.fileName) &&
+                Objects.equals(this.fileName(), that.fileName()) &&
                 this.timestamp == that.timestamp;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(index, fileName, timestamp);
+        return Objects.hash(index, fileName(), timestamp);
     }
 
     @Override
     public String toString() {
         return "FrameCapture[" +
                 "index=" + index + ", " +
-                "fileName=" + fileName + ", " +
+                "fileName=" + fileName() + ", " +
                 "timestamp=" + timestamp + ']';
     }
 }
@@ -0,0 +1,97 @@
+package com.ajthegreattt.renderdoc4j.backbone;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+
+/**
+ * An immutable snapshot of the state of the underlying RenderDoc API, taken once per frame by {@link RenderDocAPI#frameBoundary()}.
+ *
+ * <p>Systems that need this state during the rest of the frame should read it from {@link RenderDocAPI#getFrameState()}, which is a plain field read, rather than each making their own native calls.</p>
+ *
+ * <p>A new {@link FrameState} is only created when one of its values changes, so comparing snapshots by reference is a cheap way to detect a change.</p>
+ *
+ * @see RenderDocAPI#frameBoundary()
+ * @see RenderDocAPI#getFrameState()
+ */
+public final class FrameState {
+
+    static final FrameState INITIAL = new FrameState(0, false, false, null);
+
+    private final int captureCount;
+    private final boolean frameCapturing;
+    private final boolean targetControlConnected;
+    private final @Nullable FrameCapture lastCapture;
+
+    FrameState(int captureCount, boolean frameCapturing, boolean targetControlConnected, @Nullable FrameCapture lastCapture) {
+        this.captureCount = captureCount;
+        this.frameCapturing = frameCapturing;
+        this.targetControlConnected = targetControlConnected;
+        this.lastCapture = lastCapture;
+    }
+
+    /**
+     * @return The number of captures that have been made, as of the last time {@link RenderDocAPI#frameBoundary()} checked it
+     */
+    public int captureCount() {
+        return captureCount;
+    }
+
+    /**
+     * @return {@link RenderDocAPI#isFrameCapturing()}, as of the last {@link RenderDocAPI#frameBoundary()}
+     */
+    public boolean isFrameCapturing() {
+        return frameCapturing;
+    }
+
+    /**
+     * @return {@link RenderDocAPI#isTargetControlConnected()}, as of the last {@link RenderDocAPI#frameBoundary()}
+     */
+    public boolean isTargetControlConnected() {
+        return targetControlConnected;
+    }
+
+    /**
+     * @return The most recent {@link FrameCapture} seen by {@link RenderDocAPI#frameBoundary()}, or {@code null} if there has not been one yet
+     */
+    @Nullable
+    public FrameCapture lastCapture() {
+        return lastCapture;
+    }
+
+    boolean matches(int captureCount, boolean frameCapturing, boolean targetControlConnected, @Nullable FrameCapture lastCapture) {
+        return this.captureCount == captureCount &&
+                this.frameCapturing == frameCapturing &&
+                this.targetControlConnected == targetControlConnected &&
+                this.lastCapture == lastCapture;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj == null || obj.getClass() != this.getClass()) {
+            return false;
+        }
+        FrameState that = (FrameState) obj;
+        return this.captureCount == that.captureCount &&
+                this.frameCapturing == that.frameCapturing &&
+                this.targetControlConnected == that.targetControlConnected &&
+                Objects.equals(this.lastCapture, that.lastCapture);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(captureCount, frameCapturing, targetControlConnected, lastCapture);
+    }
+
+    @Override
+    public String toString() {
+        return "FrameState[" +
+                "captureCount=" + captureCount + ", " +
+                "frameCapturing=" + frameCapturing + ", " +
+                "targetControlConnected=" + targetControlConnected + ", " +
+                "lastCapture=" + lastCapture + ']';
+    }
+}
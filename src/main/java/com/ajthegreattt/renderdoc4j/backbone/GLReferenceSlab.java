@@ -0,0 +1,292 @@
+package com.ajthegreattt.renderdoc4j.backbone;
+
+import com.ajthegreattt.renderdoc4j.annotations.OpenGLIdentifiers;
+import com.ajthegreattt.renderdoc4j.memory.NativeArena;
+import com.sun.jna.Pointer;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A fixed-size pool of {@link RenderDocLibrary.RENDERDOC_GLResourceReference}s, keyed by their identifier and object name.
+ *
+ * <p>{@link RenderDocAPI#newGLReferencePointer(OpenGLIdentifiers, int)} allocates a new {@link com.sun.jna.Structure} and its native memory on every call, which is only freed once the garbage collector finalizes it.
+ * A slab instead allocates a single native block up front, and hands out the same {@link Pointer} for the same (identifier, name) pair until it is {@link #release(OpenGLIdentifiers, int) released}.
+ * Once every reference has been acquired, annotating the same objects every frame does not allocate at all.</p>
+ *
+ * <pre>{@code
+ * GLReferenceSlab references = new GLReferenceSlab(4096);
+ *
+ * api.setObjectAnnotation(references.acquire(OpenGLIdentifiers.TEXTURE, texture), "albedo", value);
+ *
+ * glDeleteTextures(textures);
+ * references.release(OpenGLIdentifiers.TEXTURE, textures);
+ * }</pre>
+ *
+ * <p>Released slots are zeroed and reused, so a {@link Pointer} must not be kept past the release of its reference. RenderDoc itself does not keep the pointer past the annotation call.</p>
+ *
+ * <p>The slab's native memory is accounted for in {@link com.ajthegreattt.renderdoc4j.memory.NativeMemory#liveBytes()}.</p>
+ *
+ * <p>This class is not thread-safe, which matches OpenGL's requirement that objects are used from the thread their context is current on.</p>
+ *
+ * @see RenderDocAPI#newGLReferencePointer(OpenGLIdentifiers, int)
+ */
+public final class GLReferenceSlab implements AutoCloseable {
+
+    /**
+     * The size of a {@code RENDERDOC_GLResourceReference}, which is two {@code GLenum}/{@code GLuint}s.
+     */
+    private static final int REFERENCE_SIZE = 2 * Integer.BYTES;
+
+    private final NativeArena arena;
+
+    private final Pointer memory;
+
+    private final Pointer[] pointers;
+
+    /**
+     * Open-addressing table from the packed (identifier, name) key to the index of its slot. A key of {@code 0} marks an empty entry, which no real key can be, as no identifier is {@code 0}.
+     */
+    private final long[] keys;
+
+    private final int[] slots;
+
+    private final int mask;
+
+    private final int[] freeSlots;
+
+    private int freeCount;
+
+    private boolean closed;
+
+    /**
+     * @param capacity The maximum number of references that can be acquired at the same time. Its native footprint is {@code 8} bytes per reference.
+     */
+    public GLReferenceSlab(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity of a GLReferenceSlab must be at least 1");
+        }
+
+        final int size = capacity * REFERENCE_SIZE;
+
+        // The block is larger than half a chunk, so it is allocated on its own at its exact size
+        this.arena = NativeArena.create("GLReferenceSlab", 8);
+        this.memory = this.arena.allocate(size);
+
+        this.pointers = new Pointer[capacity];
+
+        final int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+
+        this.keys = new long[tableSize];
+        this.slots = new int[tableSize];
+        this.mask = tableSize - 1;
+
+        this.freeSlots = new int[capacity];
+
+        for (int i = 0; i < capacity; ++i) {
+            this.freeSlots[i] = capacity - 1 - i;
+        }
+
+        this.freeCount = capacity;
+    }
+
+    /**
+     * Returns the reference for the given object, writing it into a free slot if it has not been acquired yet.
+     *
+     * @param identifier The OpenGL identifier for the resource
+     * @param objectName The name of the OpenGL object, as returned by e.g. {@code glGenTextures(...)}
+     * @return A pointer to the {@code RENDERDOC_GLResourceReference}, which is the same {@link Pointer} on every call until the reference is released
+     * @throws IllegalStateException If every slot is in use, or this slab is closed
+     */
+    public Pointer acquire(@NotNull OpenGLIdentifiers identifier, int objectName) {
+        final long key = key(identifier, objectName);
+
+        int index = indexOf(key);
+
+        if (this.keys[index] == key) {
+            return this.pointers[this.slots[index]];
+        }
+
+        ensureOpen();
+
+        if (this.freeCount == 0) {
+            throw new IllegalStateException("All " + this.pointers.length + " references of this GLReferenceSlab are in use");
+        }
+
+        final int slot = this.freeSlots[--this.freeCount];
+
+        final long offset = (long) slot * REFERENCE_SIZE;
+
+        this.memory.setInt(offset, identifier.value);
+        this.memory.setInt(offset + Integer.BYTES, objectName);
+
+        this.keys[index] = key;
+        this.slots[index] = slot;
+
+        Pointer pointer = this.pointers[slot];
+
+        if (pointer == null) {
+            pointer = this.pointers[slot] = this.memory.share(offset, REFERENCE_SIZE);
+        }
+
+        return pointer;
+    }
+
+    /**
+     * Releases the reference for the given object, if it was acquired. Call this when the object is deleted.
+     *
+     * @param identifier The OpenGL identifier for the resource
+     * @param objectName The name of the OpenGL object
+     * @return {@code true} if the reference was acquired before
+     */
+    public boolean release(@NotNull OpenGLIdentifiers identifier, int objectName) {
+        final int index = indexOf(key(identifier, objectName));
+
+        if (this.keys[index] == 0) {
+            return false;
+        }
+
+        freeSlot(this.slots[index]);
+        removeAt(index);
+
+        return true;
+    }
+
+    /**
+     * Releases the references for all the given objects, as deleted by e.g. {@code glDeleteTextures(...)}.
+     *
+     * @param identifier  The OpenGL identifier for the resources
+     * @param objectNames The names of the OpenGL objects
+     */
+    public void release(@NotNull OpenGLIdentifiers identifier, int @NotNull [] objectNames) {
+        for (int objectName : objectNames) {
+            release(identifier, objectName);
+        }
+    }
+
+    /**
+     * Releases every reference with the given identifier, e.g. when all textures are recreated.
+     *
+     * @param identifier The OpenGL identifier for the resources
+     */
+    public void releaseAll(@NotNull OpenGLIdentifiers identifier) {
+        Objects.requireNonNull(identifier);
+
+        int index = 0;
+
+        while (index < this.keys.length) {
+            final long key = this.keys[index];
+
+            if (key != 0 && (int) (key >>> 32) == identifier.value) {
+                freeSlot(this.slots[index]);
+                // Removing shifts a later entry into this index, so it has to be checked again
+                removeAt(index);
+            } else {
+                ++index;
+            }
+        }
+    }
+
+    /**
+     * Releases every reference, e.g. when the OpenGL context is destroyed.
+     */
+    public void clear() {
+        for (int index = 0; index < this.keys.length; ++index) {
+            if (this.keys[index] != 0) {
+                freeSlot(this.slots[index]);
+            }
+        }
+
+        Arrays.fill(this.keys, 0);
+    }
+
+    /**
+     * @return The number of references that are currently acquired
+     */
+    public int size() {
+        return this.pointers.length - this.freeCount;
+    }
+
+    /**
+     * @return The maximum number of references that can be acquired at the same time
+     */
+    public int capacity() {
+        return this.pointers.length;
+    }
+
+    /**
+     * Frees the native memory of this slab. Every {@link Pointer} it handed out becomes invalid.
+     */
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+
+        Arrays.fill(this.keys, 0);
+        Arrays.fill(this.pointers, null);
+
+        this.freeCount = 0;
+
+        this.arena.close();
+    }
+
+    private void ensureOpen() {
+        if (this.closed) {
+            throw new IllegalStateException("This GLReferenceSlab is closed");
+        }
+    }
+
+    private void freeSlot(int slot) {
+        this.memory.setLong((long) slot * REFERENCE_SIZE, 0);
+        this.freeSlots[this.freeCount++] = slot;
+    }
+
+    private static long key(OpenGLIdentifiers identifier, int objectName) {
+        return ((long) identifier.value << 32) | (objectName & 0xFFFFFFFFL);
+    }
+
+    private static int hash(long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * @return The index of the entry holding {@code key}, or of the empty entry where it would be inserted
+     */
+    private int indexOf(long key) {
+        int index = hash(key) & this.mask;
+
+        while (this.keys[index] != 0 && this.keys[index] != key) {
+            index = (index + 1) & this.mask;
+        }
+
+        return index;
+    }
+
+    /**
+     * Removes the entry at {@code index}, shifting later entries of the same probe sequence back so that no tombstones are needed.
+     */
+    private void removeAt(int index) {
+        int hole = index;
+        int next = (index + 1) & this.mask;
+
+        while (this.keys[next] != 0) {
+            final int home = hash(this.keys[next]) & this.mask;
+
+            // Move the entry into the hole unless its home lies cyclically within (hole, next]
+            if (((next - home) & this.mask) >= ((next - hole) & this.mask)) {
+                this.keys[hole] = this.keys[next];
+                this.slots[hole] = this.slots[next];
+                hole = next;
+            }
+
+            next = (next + 1) & this.mask;
+        }
+
+        this.keys[hole] = 0;
+    }
+}
@@ -0,0 +1,25 @@
+package com.ajthegreattt.renderdoc4j.backbone;
+
+/**
+ * Describes how the RenderDoc shared library was bound to when the {@link RenderDocAPI} was built.
+ *
+ * @see Builder#withAttachToInjectedLibrary()
+ * @see RenderDocAPI#getLibrarySource()
+ */
+public enum LibrarySource {
+
+    /**
+     * {@code RENDERDOC_GetAPI} was resolved from the symbols of the current process, e.g. because RenderDoc was preloaded into it by the RenderDoc UI.
+     */
+    CURRENT_PROCESS,
+
+    /**
+     * The RenderDoc shared library was already loaded into the current process, and was bound to without loading it again.
+     */
+    ALREADY_LOADED,
+
+    /**
+     * The RenderDoc shared library was loaded by RenderDoc4J.
+     */
+    LOADED
+}
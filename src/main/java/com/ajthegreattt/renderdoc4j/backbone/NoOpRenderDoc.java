@@ -0,0 +1,328 @@
+package com.ajthegreattt.renderdoc4j.backbone;
+
+import com.ajthegreattt.renderdoc4j.annotations.RenderDocAnnotationValue;
+import com.ajthegreattt.renderdoc4j.annotations.ReturnResult;
+import com.ajthegreattt.renderdoc4j.options.RenderDocInputButton;
+import com.ajthegreattt.renderdoc4j.options.capture.BooleanCaptureOption;
+import com.ajthegreattt.renderdoc4j.options.capture.FloatingPointCaptureOption;
+import com.ajthegreattt.renderdoc4j.util.CaptureListener;
+import com.ajthegreattt.renderdoc4j.util.FrameBoundaryListener;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link RenderDoc} that does nothing, returned by {@link RenderDoc#getInstance()} when RenderDoc is disabled.
+ *
+ * <p>Every method returns immediately: captures are never made, options read as {@code false} or {@code 0}, annotations report {@link ReturnResult#SUCCESS},
+ * and the {@link CompletableFuture}s returned by the asynchronous capture methods are already cancelled.</p>
+ *
+ * <p>This class does not reference JNA, so using it never loads the native dispatch library nor the RenderDoc shared library.</p>
+ */
+public final class NoOpRenderDoc implements RenderDoc {
+
+    /**
+     * The only instance of this class.
+     */
+    public static final NoOpRenderDoc INSTANCE = new NoOpRenderDoc();
+
+    private NoOpRenderDoc() {
+    }
+
+    private static <T> CompletableFuture<T> cancelled() {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        future.cancel(false);
+        return future;
+    }
+
+    /**
+     * @return {@code false}
+     */
+    @Override
+    public boolean isAvailable() {
+        return false;
+    }
+
+    @Override
+    public NoOpRenderDoc supplyWindowHandle(long windowHandle) {
+        return this;
+    }
+
+    @Override
+    public NoOpRenderDoc supplyAPIDevicePointer(long apiDevicePointer) {
+        return this;
+    }
+
+    @Override
+    public void supplyPointers(long devicePointer, long windowHandle) {
+    }
+
+    @Override
+    public boolean setBooleanCaptureOption(BooleanCaptureOption captureOption, boolean value) {
+        return false;
+    }
+
+    @Override
+    public boolean setFloatCaptureOption(FloatingPointCaptureOption captureOption, float value) {
+        return false;
+    }
+
+    @Override
+    public boolean getBooleanCaptureOption(BooleanCaptureOption captureOption) {
+        return false;
+    }
+
+    @Override
+    public float getFloatCaptureOption(FloatingPointCaptureOption captureOption) {
+        return 0.0F;
+    }
+
+    @Override
+    public void setFocusToggleKeys(@Nullable RenderDocInputButton[] buttons) {
+    }
+
+    @Override
+    public void disableFocusToggleKeys() {
+    }
+
+    @Override
+    public void setCaptureKeys(@Nullable RenderDocInputButton[] buttons) {
+    }
+
+    @Override
+    public void disableCaptureKeys() {
+    }
+
+    /**
+     * @return An empty string
+     */
+    @Override
+    public String getCaptureFilePath() {
+        return "";
+    }
+
+    @Override
+    public void setCaptureFilePath(String filePath) {
+    }
+
+    @Override
+    public void triggerCapture() {
+    }
+
+    /**
+     * @return A cancelled future
+     */
+    @Override
+    public CompletableFuture<FrameCapture> triggerCaptureAsync() {
+        return cancelled();
+    }
+
+    @Override
+    public void triggerMultiFrameCapture(int numFrames) {
+    }
+
+    /**
+     * @return A cancelled future
+     */
+    @Override
+    public CompletableFuture<List<FrameCapture>> triggerMultiFrameCaptureAsync(int numFrames) {
+        return cancelled();
+    }
+
+    @Override
+    public void startFrameCapture() {
+    }
+
+    @Override
+    public void startFrameCapture(long devicePointer, long windowHandle) {
+    }
+
+    /**
+     * @return A {@link CaptureScope} whose {@link CaptureScope#capture() capture} is cancelled when it is closed
+     */
+    @Override
+    public CaptureScope beginCapture() {
+        return new CaptureScope(null);
+    }
+
+    /**
+     * @return A {@link CaptureScope} whose {@link CaptureScope#capture() capture} is cancelled when it is closed
+     */
+    @Override
+    public CaptureScope beginCapture(@Nullable String title) {
+        return new CaptureScope(null);
+    }
+
+    @Override
+    public boolean endFrameCapture() {
+        return false;
+    }
+
+    @Override
+    public boolean endFrameCapture(long devicePointer, long windowHandle) {
+        return false;
+    }
+
+    @Override
+    public boolean discardFrameCapture() {
+        return false;
+    }
+
+    @Override
+    public boolean isFrameCapturing() {
+        return false;
+    }
+
+    @Override
+    public int getNumCaptures() {
+        return 0;
+    }
+
+    @Override
+    public int getCaptureCount() {
+        return 0;
+    }
+
+    @Override
+    public Optional<FrameCapture> getCapture(int index) {
+        return Optional.empty();
+    }
+
+    /**
+     * The listener is discarded, as no captures are ever made.
+     */
+    @Override
+    public void addCaptureListener(CaptureListener listener) {
+    }
+
+    @Override
+    public void updateCaptureListeners() {
+    }
+
+    @Override
+    public FrameState frameBoundary() {
+        return FrameState.INITIAL;
+    }
+
+    /**
+     * The listener is discarded, as {@link #frameBoundary()} does nothing.
+     */
+    @Override
+    public void addFrameBoundaryListener(@NotNull FrameBoundaryListener listener) {
+    }
+
+    /**
+     * @return {@code false}
+     */
+    @Override
+    public boolean removeFrameBoundaryListener(FrameBoundaryListener listener) {
+        return false;
+    }
+
+    @Override
+    public FrameState getFrameState() {
+        return FrameState.INITIAL;
+    }
+
+    @Override
+    public boolean isTargetControlConnected() {
+        return false;
+    }
+
+    /**
+     * @return {@code 0}, as no replay UI is ever launched
+     */
+    @Override
+    public int launchReplayUI(boolean connectTargetControl, String cmdline) {
+        return 0;
+    }
+
+    /**
+     * @return A cancelled future
+     */
+    @Override
+    public CompletableFuture<Integer> launchReplayUIAsync(boolean connectTargetControl, String cmdline) {
+        return cancelled();
+    }
+
+    /**
+     * @return A cancelled future
+     */
+    @Override
+    public CompletableFuture<Integer> launchReplayUIAsync(boolean connectTargetControl, String cmdline, long timeout, TimeUnit unit) {
+        return cancelled();
+    }
+
+    @Override
+    public boolean showReplayUI() {
+        return false;
+    }
+
+    /**
+     * @return A cancelled future
+     */
+    @Override
+    public CompletableFuture<Boolean> showReplayUIAsync() {
+        return cancelled();
+    }
+
+    /**
+     * @return A cancelled future
+     */
+    @Override
+    public CompletableFuture<Boolean> showReplayUIAsync(long timeout, TimeUnit unit) {
+        return cancelled();
+    }
+
+    @Override
+    public void setCaptureTitle(String title) {
+    }
+
+    @Override
+    public void setCaptureFileComments(@Nullable String filePath, String comments) {
+    }
+
+    @Override
+    public ReturnResult setObjectAnnotation(long object, @NotNull String key, @Nullable RenderDocAnnotationValue annotationValue) {
+        return ReturnResult.SUCCESS;
+    }
+
+    @Override
+    public ReturnResult setObjectAnnotation(long devicePointer, long object, @NotNull String key, @Nullable RenderDocAnnotationValue annotationValue) {
+        return ReturnResult.SUCCESS;
+    }
+
+    @Override
+    public ReturnResult setCommandAnnotation(long queueOrCommandBuffer, @NotNull String key, @Nullable RenderDocAnnotationValue annotationValue) {
+        return ReturnResult.SUCCESS;
+    }
+
+    @Override
+    public ReturnResult setCommandAnnotation(long devicePointer, long queueOrCommandBuffer, @NotNull String key, @Nullable RenderDocAnnotationValue annotationValue) {
+        return ReturnResult.SUCCESS;
+    }
+
+    /**
+     * @return {@code false}
+     */
+    @Override
+    public boolean isAnnotationGateOpen() {
+        return false;
+    }
+
+    @Override
+    public void resetAnnotationDeduplication() {
+    }
+
+    /**
+     * @return {@code 0}
+     */
+    @Override
+    public int forgetObjectAnnotations(long object) {
+        return 0;
+    }
+}
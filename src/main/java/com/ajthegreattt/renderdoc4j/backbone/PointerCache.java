@@ -0,0 +1,95 @@
+package com.ajthegreattt.renderdoc4j.backbone;
+
+import com.sun.jna.Pointer;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.LongFunction;
+
+/**
+ * A small, 4-way set-associative cache of {@link Pointer} wrappers keyed by their peer value.
+ *
+ * <p>JNA requires a {@link Pointer} object for every {@code void*} argument, so calling into RenderDoc with a raw {@code long} handle would otherwise allocate a new wrapper on every call.
+ * Handles that are used repeatedly (devices, windows, Vulkan objects and command buffers) will instead hit the same wrapper every time.</p>
+ *
+ * <p>A peer can be kept in any of the {@value #WAYS} slots of its set, so up to {@value #WAYS} handles that map to the same set are cached side by side rather than evicting each other every frame.
+ * A hit moves the wrapper one slot towards the front of its set, and a miss fills the first empty slot or replaces the last one, so the handles that are used the most stay cached.
+ * Concurrent access is safe, as {@link Pointer}s are immutable and the worst case is an extra allocation.</p>
+ *
+ * @param <T> The type of {@link Pointer} stored within this cache
+ */
+final class PointerCache<T extends Pointer> {
+
+    /**
+     * The number of slots in each set.
+     */
+    static final int WAYS = 4;
+
+    private final Pointer[] slots;
+
+    /**
+     * Selects the first slot of a set, which is always a multiple of {@link #WAYS}.
+     */
+    private final int mask;
+
+    private final LongFunction<T> factory;
+
+    /**
+     * @param size    The number of slots, which is rounded up to the next power of two (and to at least {@value #WAYS})
+     * @param factory Creates a new wrapper for a peer value that is not cached yet
+     */
+    PointerCache(int size, LongFunction<T> factory) {
+        final int capacity = Integer.highestOneBit(Math.max(WAYS, size) - 1) << 1;
+
+        this.slots = new Pointer[capacity];
+        this.mask = (capacity - 1) & -WAYS;
+        this.factory = factory;
+    }
+
+    /**
+     * @param peer The native address or handle
+     * @return A cached wrapper for the given {@code peer}, or {@code null} if the {@code peer} is {@code 0} (which RenderDoc treats as a wildcard)
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    T get(long peer) {
+        if (peer == 0) {
+            return null;
+        }
+
+        final Pointer[] slots = this.slots;
+        final int set = mix(peer) & this.mask;
+
+        int free = set + WAYS - 1;
+
+        for (int way = 0; way < WAYS; way++) {
+            final Pointer cached = slots[set + way];
+
+            if (cached == null) {
+                free = Math.min(free, set + way);
+                continue;
+            }
+
+            if (Pointer.nativeValue(cached) == peer) {
+                if (way > 0) {
+                    // Promotes the wrapper, so that a handle used every frame is not the next one to be replaced
+                    slots[set + way] = slots[set + way - 1];
+                    slots[set + way - 1] = cached;
+                }
+
+                return (T) cached;
+            }
+        }
+
+        final T created = this.factory.apply(peer);
+
+        slots[free] = created;
+
+        return created;
+    }
+
+    private static int mix(long peer) {
+        // Handles and addresses are usually aligned, so the low bits alone are a poor index
+        final long h = peer * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
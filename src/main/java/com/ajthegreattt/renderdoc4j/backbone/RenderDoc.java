@@ -0,0 +1,309 @@
+package com.ajthegreattt.renderdoc4j.backbone;
+
+import com.ajthegreattt.renderdoc4j.annotations.RenderDocAnnotationValue;
+import com.ajthegreattt.renderdoc4j.annotations.ReturnResult;
+import com.ajthegreattt.renderdoc4j.options.RenderDocInputButton;
+import com.ajthegreattt.renderdoc4j.options.capture.BooleanCaptureOption;
+import com.ajthegreattt.renderdoc4j.options.capture.FloatingPointCaptureOption;
+import com.ajthegreattt.renderdoc4j.util.CaptureListener;
+import com.ajthegreattt.renderdoc4j.util.FrameBoundaryListener;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The part of the RenderDoc API that works with plain handles, implemented by the native {@link RenderDocAPI} and by {@link NoOpRenderDoc}, which does nothing.
+ *
+ * <p>Code that should run with and without RenderDoc can call {@link RenderDoc#getInstance()} once and use the result unconditionally.
+ * Only one implementation is ever loaded in a process, so every call site stays monomorphic and the JIT inlines the no-ops away when RenderDoc is disabled.</p>
+ *
+ * <p>Methods that deal with JNA types (e.g. {@link com.sun.jna.Pointer Pointer} overloads) are only available on {@link RenderDocAPI}, and so are those whose result is bound to a loaded binding:
+ * {@link RenderDocAPI#renderThreadQueue()}, {@link RenderDocAPI#registerMXBean()}, {@link RenderDocAPI#getAPIVersion()}, {@link RenderDocAPI#getCapabilities()},
+ * {@link RenderDocAPI#frameArena()}, {@link RenderDocAPI#newCommandAnnotationScopes()} and {@link RenderDocAPI#newAnnotationRecorder()}.
+ * Set those up behind an {@link #isAvailable()} check.</p>
+ *
+ * @see RenderDoc#getInstance()
+ */
+public interface RenderDoc {
+
+    /**
+     * The system property that disables RenderDoc when set to {@code false}.
+     */
+    String ENABLED_PROPERTY = "renderdoc4j.enabled";
+
+    /**
+     * The environment variable that disables RenderDoc when set to {@code false}, if the {@link #ENABLED_PROPERTY system property} is not set.
+     */
+    String ENABLED_ENVIRONMENT_VARIABLE = "RENDERDOC4J_ENABLED";
+
+    /**
+     * Returns the {@link NoOpRenderDoc#INSTANCE no-op implementation} if RenderDoc is disabled with the {@value #ENABLED_PROPERTY} system property or the {@value #ENABLED_ENVIRONMENT_VARIABLE} environment variable,
+     * and {@link RenderDocAPI#getInstance()} otherwise. If the native API fails to load, the failure is printed to {@link System#err} and the no-op implementation is returned instead.
+     *
+     * <p>When RenderDoc is disabled, neither JNA's native dispatch library nor the RenderDoc shared library are loaded. The choice is made on the first call, and never changes afterwards.</p>
+     *
+     * @return The {@link RenderDoc} implementation for this process
+     */
+    static RenderDoc getInstance() {
+        return RenderDocSelector.INSTANCE;
+    }
+
+    /**
+     * @return {@code true} if this is backed by the native RenderDoc API, or {@code false} if it is the {@link NoOpRenderDoc}
+     */
+    boolean isAvailable();
+
+    /**
+     * @see RenderDocAPI#supplyWindowHandle(long)
+     */
+    RenderDoc supplyWindowHandle(long windowHandle);
+
+    /**
+     * @see RenderDocAPI#supplyAPIDevicePointer(long)
+     */
+    RenderDoc supplyAPIDevicePointer(long apiDevicePointer);
+
+    /**
+     * @see RenderDocAPI#supplyPointers(long, long)
+     */
+    void supplyPointers(long devicePointer, long windowHandle);
+
+    /**
+     * @see RenderDocAPI#setBooleanCaptureOption(BooleanCaptureOption, boolean)
+     */
+    boolean setBooleanCaptureOption(BooleanCaptureOption captureOption, boolean value);
+
+    /**
+     * @see RenderDocAPI#setFloatCaptureOption(FloatingPointCaptureOption, float)
+     */
+    boolean setFloatCaptureOption(FloatingPointCaptureOption captureOption, float value);
+
+    /**
+     * @see RenderDocAPI#getBooleanCaptureOption(BooleanCaptureOption)
+     */
+    boolean getBooleanCaptureOption(BooleanCaptureOption captureOption);
+
+    /**
+     * @see RenderDocAPI#getFloatCaptureOption(FloatingPointCaptureOption)
+     */
+    float getFloatCaptureOption(FloatingPointCaptureOption captureOption);
+
+    /**
+     * @see RenderDocAPI#setFocusToggleKeys(RenderDocInputButton[])
+     */
+    void setFocusToggleKeys(@Nullable RenderDocInputButton[] buttons);
+
+    /**
+     * @see RenderDocAPI#disableFocusToggleKeys()
+     */
+    void disableFocusToggleKeys();
+
+    /**
+     * @see RenderDocAPI#setCaptureKeys(RenderDocInputButton[])
+     */
+    void setCaptureKeys(@Nullable RenderDocInputButton[] buttons);
+
+    /**
+     * @see RenderDocAPI#disableCaptureKeys()
+     */
+    void disableCaptureKeys();
+
+    /**
+     * @see RenderDocAPI#getCaptureFilePath()
+     */
+    String getCaptureFilePath();
+
+    /**
+     * @see RenderDocAPI#setCaptureFilePath(String)
+     */
+    void setCaptureFilePath(String filePath);
+
+    /**
+     * @see RenderDocAPI#triggerCapture()
+     */
+    void triggerCapture();
+
+    /**
+     * @see RenderDocAPI#triggerCaptureAsync()
+     */
+    CompletableFuture<FrameCapture> triggerCaptureAsync();
+
+    /**
+     * @see RenderDocAPI#triggerMultiFrameCapture(int)
+     */
+    void triggerMultiFrameCapture(int numFrames);
+
+    /**
+     * @see RenderDocAPI#triggerMultiFrameCaptureAsync(int)
+     */
+    CompletableFuture<List<FrameCapture>> triggerMultiFrameCaptureAsync(int numFrames);
+
+    /**
+     * @see RenderDocAPI#startFrameCapture()
+     */
+    void startFrameCapture();
+
+    /**
+     * @see RenderDocAPI#startFrameCapture(long, long)
+     */
+    void startFrameCapture(long devicePointer, long windowHandle);
+
+    /**
+     * @see RenderDocAPI#beginCapture()
+     */
+    CaptureScope beginCapture();
+
+    /**
+     * @see RenderDocAPI#beginCapture(String)
+     */
+    CaptureScope beginCapture(@Nullable String title);
+
+    /**
+     * @see RenderDocAPI#endFrameCapture()
+     */
+    boolean endFrameCapture();
+
+    /**
+     * @see RenderDocAPI#endFrameCapture(long, long)
+     */
+    boolean endFrameCapture(long devicePointer, long windowHandle);
+
+    /**
+     * @see RenderDocAPI#discardFrameCapture()
+     */
+    boolean discardFrameCapture();
+
+    /**
+     * @see RenderDocAPI#isFrameCapturing()
+     */
+    boolean isFrameCapturing();
+
+    /**
+     * @see RenderDocAPI#getNumCaptures()
+     */
+    int getNumCaptures();
+
+    /**
+     * @see RenderDocAPI#getCaptureCount()
+     */
+    int getCaptureCount();
+
+    /**
+     * @see RenderDocAPI#getCapture(int)
+     */
+    Optional<FrameCapture> getCapture(int index);
+
+    /**
+     * @see RenderDocAPI#addCaptureListener(CaptureListener)
+     */
+    void addCaptureListener(CaptureListener listener);
+
+    /**
+     * @see RenderDocAPI#updateCaptureListeners()
+     */
+    void updateCaptureListeners();
+
+    /**
+     * @see RenderDocAPI#frameBoundary()
+     */
+    FrameState frameBoundary();
+
+    /**
+     * @see RenderDocAPI#addFrameBoundaryListener(FrameBoundaryListener)
+     */
+    void addFrameBoundaryListener(@NotNull FrameBoundaryListener listener);
+
+    /**
+     * @see RenderDocAPI#removeFrameBoundaryListener(FrameBoundaryListener)
+     */
+    boolean removeFrameBoundaryListener(FrameBoundaryListener listener);
+
+    /**
+     * @see RenderDocAPI#getFrameState()
+     */
+    FrameState getFrameState();
+
+    /**
+     * @see RenderDocAPI#isTargetControlConnected()
+     */
+    boolean isTargetControlConnected();
+
+    /**
+     * @see RenderDocAPI#launchReplayUI(boolean, String)
+     */
+    int launchReplayUI(boolean connectTargetControl, String cmdline);
+
+    /**
+     * @see RenderDocAPI#launchReplayUIAsync(boolean, String)
+     */
+    CompletableFuture<Integer> launchReplayUIAsync(boolean connectTargetControl, String cmdline);
+
+    /**
+     * @see RenderDocAPI#launchReplayUIAsync(boolean, String, long, TimeUnit)
+     */
+    CompletableFuture<Integer> launchReplayUIAsync(boolean connectTargetControl, String cmdline, long timeout, TimeUnit unit);
+
+    /**
+     * @see RenderDocAPI#showReplayUI()
+     */
+    boolean showReplayUI();
+
+    /**
+     * @see RenderDocAPI#showReplayUIAsync()
+     */
+    CompletableFuture<Boolean> showReplayUIAsync();
+
+    /**
+     * @see RenderDocAPI#showReplayUIAsync(long, TimeUnit)
+     */
+    CompletableFuture<Boolean> showReplayUIAsync(long timeout, TimeUnit unit);
+
+    /**
+     * @see RenderDocAPI#setCaptureTitle(String)
+     */
+    void setCaptureTitle(String title);
+
+    /**
+     * @see RenderDocAPI#setCaptureFileComments(String, String)
+     */
+    void setCaptureFileComments(@Nullable String filePath, String comments);
+
+    /**
+     * @see RenderDocAPI#setObjectAnnotation(long, String, RenderDocAnnotationValue)
+     */
+    ReturnResult setObjectAnnotation(long object, @NotNull String key, @Nullable RenderDocAnnotationValue annotationValue);
+
+    /**
+     * @see RenderDocAPI#setObjectAnnotation(long, long, String, RenderDocAnnotationValue)
+     */
+    ReturnResult setObjectAnnotation(long devicePointer, long object, @NotNull String key, @Nullable RenderDocAnnotationValue annotationValue);
+
+    /**
+     * @see RenderDocAPI#setCommandAnnotation(long, String, RenderDocAnnotationValue)
+     */
+    ReturnResult setCommandAnnotation(long queueOrCommandBuffer, @NotNull String key, @Nullable RenderDocAnnotationValue annotationValue);
+
+    /**
+     * @see RenderDocAPI#setCommandAnnotation(long, long, String, RenderDocAnnotationValue)
+     */
+    ReturnResult setCommandAnnotation(long devicePointer, long queueOrCommandBuffer, @NotNull String key, @Nullable RenderDocAnnotationValue annotationValue);
+
+    /**
+     * @see RenderDocAPI#isAnnotationGateOpen()
+     */
+    boolean isAnnotationGateOpen();
+
+    /**
+     * @see RenderDocAPI#resetAnnotationDeduplication()
+     */
+    void resetAnnotationDeduplication();
+
+    /**
+     * @see RenderDocAPI#forgetObjectAnnotations(long)
+     */
+    int forgetObjectAnnotations(long object);
+}
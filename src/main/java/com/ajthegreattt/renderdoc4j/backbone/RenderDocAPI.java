@@ -5,12 +5,16 @@ import com.ajthegreattt.renderdoc4j.annotations.RenderDocAnnotationType;
 import com.ajthegreattt.renderdoc4j.annotations.RenderDocAnnotationTypes;
 import com.ajthegreattt.renderdoc4j.annotations.RenderDocAnnotationValue;
 import com.ajthegreattt.renderdoc4j.annotations.ReturnResult;
+import com.ajthegreattt.renderdoc4j.memory.NativeArena;
 import com.ajthegreattt.renderdoc4j.options.RenderDocInputButton;
 import com.ajthegreattt.renderdoc4j.options.capture.BooleanCaptureOption;
 import com.ajthegreattt.renderdoc4j.options.capture.FloatingPointCaptureOption;
 import com.ajthegreattt.renderdoc4j.options.overlay.OverlaySettingBits;
 import com.ajthegreattt.renderdoc4j.options.overlay.RenderDocOverlayBit;
 import com.ajthegreattt.renderdoc4j.util.CaptureListener;
+import com.ajthegreattt.renderdoc4j.util.FrameBoundaryListener;
+import com.sun.jna.CallbackReference;
+import com.sun.jna.Function;
 import com.sun.jna.Pointer;
 import com.sun.jna.ptr.IntByReference;
 import com.sun.jna.ptr.LongByReference;
@@ -18,13 +22,23 @@ import com.sun.jna.ptr.PointerByReference;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Supplier;
 
 /**
@@ -131,24 +145,51 @@ import java.util.function.Supplier;
  *
  *
  */
-public final class RenderDocAPI {
+public final class RenderDocAPI implements RenderDoc {
 
     static final Supplier<IllegalStateException> INSTANCE_BUILT_ALREADY = () -> new IllegalStateException("The Instance for the RenderDocAPI has already been built");
 
+    /**
+     * The timeout used by {@link #launchReplayUIAsync(boolean, String)} and {@link #showReplayUIAsync()}.
+     */
+    public static final long DEFAULT_REPLAY_UI_TIMEOUT_SECONDS = 30;
+
     static RenderDocAPI INSTANCE;
 
-    private final RenderDocAPIInternal internal;
+    /**
+     * The most scratch arenas that are kept between calls. Threads that call concurrently beyond that get an arena that is freed after their call.
+     */
+    private static final int SCRATCH_ARENA_POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    private static final int SCRATCH_ARENA_CHUNK_SIZE = 16384;
+
+    /**
+     * Replaced once by the warmed-up copy in {@link StartupMode#WARM_UP}, which was resolved on another thread, so it is {@code volatile} to publish that copy safely.
+     */
+    private volatile RenderDocAPIInternal internal;
 
     private final RenderDocAPIVersion version;
 
+    private final Capabilities capabilities;
+
+    private final LibrarySource librarySource;
+
     private final OverlaySettingBits overlaySettingBits;
 
     private final AtomicReference<RenderDocLibrary.RENDERDOC_DevicePointer> devicePointer = new AtomicReference<>(null);
 
     private final AtomicReference<RenderDocLibrary.RENDERDOC_WindowHandle> windowHandle = new AtomicReference<>(null);
 
+    private final PointerCache<RenderDocLibrary.RENDERDOC_DevicePointer> devicePointers = new PointerCache<>(16, RenderDocLibrary.RENDERDOC_DevicePointer::new);
+
+    private final PointerCache<RenderDocLibrary.RENDERDOC_WindowHandle> windowHandles = new PointerCache<>(16, RenderDocLibrary.RENDERDOC_WindowHandle::new);
+
+    private final PointerCache<Pointer> apiObjects;
+
     private final ArrayList<CaptureListener> captureListeners;
 
+    private final CaptureRequests captureRequests = new CaptureRequests();
+
     private int maxFilePathLength;
 
     /**
@@ -158,15 +199,58 @@ public final class RenderDocAPI {
      */
     private int captureCount = 0;
 
+    /**
+     * The number of frames after a capture could have been requested, during which {@link RenderDocAPI#frameBoundary()} checks the capture count every frame.
+     */
+    private static final int HOT_POLL_FRAMES = 8;
+
+    /**
+     * The longest interval, in frames, between two capture count checks made by {@link RenderDocAPI#frameBoundary()}.
+     */
+    private static final int MAX_POLL_INTERVAL = 64;
+
+    private volatile int hotPollFrames;
+
+    private int pollInterval = 1;
+
+    private int framesUntilPoll;
+
+    private volatile FrameState frameState = FrameState.INITIAL;
+
+    private final @Nullable AnnotationDeduplicator annotationDeduplicator;
+
+    private final @Nullable AnnotationGate annotationGate;
+
+    private volatile @Nullable RenderDocAPIMonitor monitor;
+
+    private volatile FrameBoundaryListener[] frameBoundaryListeners = new FrameBoundaryListener[0];
+
+    private final RenderThreadQueue renderThreadQueue;
+
+    /**
+     * A bounded pool of arenas for the native memory that is only needed for the duration of a single call, e.g. annotation unions and capture file paths.
+     * An arena is taken out of the pool for the call and put back afterwards, so native calls never have to hold a lock. An empty slot is {@code null}.
+     */
+    private final AtomicReferenceArray<NativeArena> scratchArenas = new AtomicReferenceArray<>(SCRATCH_ARENA_POOL_SIZE);
+
+    private final NativeArena frameArena = NativeArena.create("RenderDocAPI Frame");
+
+    private @Nullable Function commandAnnotationFunction;
+
+    /**
+     * Keeps the RenderDoc shared library loaded, as JNA closes a library once nothing references it anymore, which would leave the function pointers of the API dangling.
+     */
+    private final RenderDocLibrary library;
+
     RenderDocAPI(@NotNull Builder builder) {
 
-        RenderDocLibrary lib = builder.getLib();
+        RenderDocLibrary lib = this.library = builder.getLib();
+
+        this.librarySource = builder.librarySource;
 
         PointerByReference outAPIPointers = new PointerByReference();
 
-        if (lib.RENDERDOC_GetAPI(builder.version, outAPIPointers) == 0) {
-            throw new RuntimeException("Could not establish the API for RenderDoc for some reason");
-        }
+        this.version = negotiateVersion(lib, builder.version, outAPIPointers);
 
         Pointer struct = outAPIPointers.getValue();
 
@@ -174,15 +258,9 @@ public final class RenderDocAPI {
             throw new RuntimeException("Error: The API Pointers struct has not been populated");
         }
 
-        this.internal = new RenderDocAPIInternal(struct);
-
-        IntByReference major = new IntByReference();
-        IntByReference minor = new IntByReference();
-        IntByReference patch = new IntByReference();
-
-        in().GetAPIVersion.invoke(major, minor, patch);
+        this.capabilities = new Capabilities(this.version);
 
-        this.version = RenderDocAPIVersion.fromInt(Integer.parseInt("" + major.getValue() + minor.getValue() + patch.getValue()));
+        this.internal = new RenderDocAPIInternal(struct, builder.startupMode, this.capabilities);
 
         this.maxFilePathLength = builder.maxFilePathLength;
 
@@ -190,17 +268,42 @@ public final class RenderDocAPI {
 
         this.overlaySettingBits = new OverlaySettingBits(in(), overlayBits.isEmpty() ? EnumSet.of(RenderDocOverlayBit.DEFAULT) : overlayBits);
 
-        if (builder.windowHandle != 0) {
-            this.windowHandle.set(new RenderDocLibrary.RENDERDOC_WindowHandle(builder.windowHandle));
-        }
+        this.windowHandle.set(this.windowHandles.get(builder.windowHandle));
 
-        if (builder.apiDeviceHandle != 0) {
-            this.devicePointer.set(new RenderDocLibrary.RENDERDOC_DevicePointer(builder.apiDeviceHandle));
-        }
+        this.devicePointer.set(this.devicePointers.get(builder.apiDeviceHandle));
 
         builder.tasks.forEach(consumer -> consumer.accept(this));
 
         this.captureListeners = builder.captureListeners.isEmpty() ? new ArrayList<>(0) : builder.captureListeners;
+
+        this.annotationDeduplicator = builder.annotationDeduplication ? new AnnotationDeduplicator() : null;
+
+        this.annotationGate = builder.annotationGating ? new AnnotationGate() : null;
+
+        this.renderThreadQueue = new RenderThreadQueue(this, builder.renderThreadQueueCapacity);
+
+        this.apiObjects = new PointerCache<>(builder.objectHandleCacheSize, Pointer::new);
+
+        if (builder.startupMode == StartupMode.WARM_UP) {
+            RenderDocAPIInternal.warmUp(struct, this.capabilities, warm -> this.internal = warm);
+        }
+    }
+
+    /**
+     * Requests the given {@code version} of the API, and then every older {@link RenderDocAPIVersion} from newest to oldest, until the RenderDoc shared library accepts one.
+     *
+     * @return The newest {@link RenderDocAPIVersion}, no newer than the requested {@code version}, that the RenderDoc shared library provides
+     */
+    private static RenderDocAPIVersion negotiateVersion(RenderDocLibrary lib, RenderDocAPIVersion version, PointerByReference outAPIPointers) {
+        final RenderDocAPIVersion[] versions = RenderDocAPIVersion.values();
+
+        for (int i = version.ordinal(); i >= 0; --i) {
+            if (lib.RENDERDOC_GetAPI(versions[i], outAPIPointers) != 0) {
+                return versions[i];
+            }
+        }
+
+        throw new RuntimeException("Could not establish the API for RenderDoc for any version up to " + version);
     }
 
     private RenderDocAPIInternal in() {
@@ -227,6 +330,8 @@ public final class RenderDocAPI {
     /**
      * Returns a new {@link RenderDocAPI#INSTANCE Instance} if it has not been created yet, or the {@link RenderDocAPI#INSTANCE Instance} that has been created already.
      *
+     * <p>Code that should also run when RenderDoc is disabled should use {@link RenderDoc#getInstance()} instead, which never loads JNA or the native library in that case.</p>
+     *
      * @return A lazily-initialized {@link RenderDocAPI} with the default settings.
      */
     public static RenderDocAPI getInstance() {
@@ -289,11 +394,16 @@ public final class RenderDocAPI {
 
     /**
      * Creates a new {@link RenderDocLibrary.RENDERDOC_GLResourceReference} with the given identifier and object name.
+     *
+     * <p>Every call allocates new native memory, which is only freed once the garbage collector finalizes it.
+     * When annotating the same objects repeatedly, use a {@link GLReferenceSlab} instead.</p>
+     *
      * @param identifier The OpenGL identifier for the resource.
      * @param objectName The name of the OpenGL object.
      *                  Normally this name is returned via OpenGL generation/creation functions,
      *                  like {@code glGenBuffers(...)}, {@code glGenTextures(...)}, etc.
      * @return A pointer to the newly created {@link RenderDocLibrary.RENDERDOC_GLResourceReference}.
+     * @see GLReferenceSlab
      */
     public static Pointer newGLReferencePointer(OpenGLIdentifiers identifier, int objectName) {
         return new RenderDocLibrary.RENDERDOC_GLResourceReference(identifier, objectName).getPointer();
@@ -316,6 +426,14 @@ public final class RenderDocAPI {
         this.maxFilePathLength = maxFilePathLength;
     }
 
+    /**
+     * @return {@code true}, as this is backed by the native RenderDoc API
+     */
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
     /**
      * <b><i>Warning: This is an optional operation. If you do not know what you are doing, you most likely do not need to use it.</i></b>
      *
@@ -328,7 +446,7 @@ public final class RenderDocAPI {
      */
     //TEST: PASSING
     public RenderDocAPI supplyWindowHandle(long windowHandle) {
-        this.windowHandle.set(new RenderDocLibrary.RENDERDOC_WindowHandle(windowHandle));
+        this.windowHandle.set(this.windowHandles.get(windowHandle));
         return this;
     }
 
@@ -343,7 +461,7 @@ public final class RenderDocAPI {
      */
     //TEST: PASSING
     public RenderDocAPI supplyAPIDevicePointer(long apiDevicePointer) {
-        this.devicePointer.set(new RenderDocLibrary.RENDERDOC_DevicePointer(apiDevicePointer));
+        this.devicePointer.set(this.devicePointers.get(apiDevicePointer));
         return this;
     }
 
@@ -356,7 +474,7 @@ public final class RenderDocAPI {
      */
     //TEST: PASSING
     public boolean setBooleanCaptureOption(BooleanCaptureOption captureOption, boolean value) {
-        return in().SetCaptureOptionU32.invoke(captureOption, value ? 1 : 0) == 1;
+        return in().SetCaptureOptionU32().invoke(captureOption, value ? 1 : 0) == 1;
     }
 
     /**
@@ -368,7 +486,7 @@ public final class RenderDocAPI {
      */
     //TEST: PASSING
     public boolean setFloatCaptureOption(FloatingPointCaptureOption captureOption, float value) {
-        return in().SetCaptureOptionF32.invoke(captureOption, value) == 1;
+        return in().SetCaptureOptionF32().invoke(captureOption, value) == 1;
     }
 
     /**
@@ -383,7 +501,7 @@ public final class RenderDocAPI {
         byte i = 1;
 
         for (BooleanCaptureOption option : array) {
-            if (in().SetCaptureOptionU32.invoke(option, value ? 1 : 0) != 1) {
+            if (in().SetCaptureOptionU32().invoke(option, value ? 1 : 0) != 1) {
                 i = 0;
             }
         }
@@ -404,7 +522,7 @@ public final class RenderDocAPI {
         byte i = 1;
 
         for (FloatingPointCaptureOption option : array) {
-            if (in().SetCaptureOptionF32.invoke(option, value) != 1) {
+            if (in().SetCaptureOptionF32().invoke(option, value) != 1) {
                 i = 0;
             }
         }
@@ -413,7 +531,7 @@ public final class RenderDocAPI {
     }
 
     /**
-     * If you have registered {@link CaptureListener}s, this method <b>must</b> be called.
+     * If you have registered {@link CaptureListener}s, or are waiting on any of the {@link CompletableFuture}s returned by this API, this method <b>must</b> be called.
      *
      * <p>This library has no internal time, as the underlying RenderDoc API does not expose any.</p>
      *
@@ -421,30 +539,286 @@ public final class RenderDocAPI {
      *
      * <p>When determining where to call this method for your listeners, consider how quickly you want your {@link CaptureListener}s to receive their updates.</p>
      *
+     * <p>Each new {@link FrameCapture} is only retrieved once, and is then handed to every {@link CaptureListener} and pending future in turn.</p>
+     *
      * @see CaptureListener
      * @see RenderDocAPI#addCaptureListener(CaptureListener)
+     * @see RenderDocAPI#triggerCaptureAsync()
+     * @see RenderDocAPI#beginCapture(String)
      */
     //TEST:PASSING
     public void updateCaptureListeners() {
-        final int captureCount = getNumCaptures();
+        dispatchCaptures(getNumCaptures());
+    }
+
+    /**
+     * Hands every capture made since the last check to the {@link CaptureListener}s and pending requests.
+     *
+     * @param captureCount The current number of captures
+     * @return The last {@link FrameCapture} that was retrieved, or {@code null} if none were
+     */
+    private @Nullable FrameCapture dispatchCaptures(int captureCount) {
+        FrameCapture last = null;
 
         if (captureCount != this.captureCount) {
             final int startingCaptureCount = this.captureCount;
 
-            this.captureListeners.forEach(listener -> {
+            final boolean hasPendingRequests = this.captureRequests.hasPending();
+
+            if (hasPendingRequests || !this.captureListeners.isEmpty()) {
                 for (int i = startingCaptureCount; i < captureCount; ++i) {
-                    final Optional<FrameCapture> capture = this.getCapture(i);
+                    final @Nullable FrameCapture capture = this.getCapture(i).orElse(null);
+
+                    for (CaptureListener listener : this.captureListeners) {
+                        if (capture != null) {
+                            listener.process(capture);
+                        } else {
+                            listener.ifFailed(i);
+                        }
+                    }
+
+                    if (hasPendingRequests) {
+                        this.captureRequests.offer(i, capture);
+                    }
 
-                    if (capture.isPresent()) {
-                        listener.process(capture.get());
-                    } else {
-                        listener.ifFailed(i);
+                    if (capture != null) {
+                        last = capture;
                     }
                 }
-            });
+            }
 
             this.captureCount = captureCount;
         }
+
+        return last;
+    }
+
+    /**
+     * Call this method once per frame on the render thread, e.g. right after presenting. It reads the state of the underlying RenderDoc API once into an immutable {@link FrameState},
+     * which the rest of the frame can read from {@link RenderDocAPI#getFrameState()} without any native calls, and updates the {@link CaptureListener}s and pending futures.
+     *
+     * <p>Unlike {@link RenderDocAPI#updateCaptureListeners()}, the capture count is only checked every frame when a capture could have just completed:
+     * for a few frames after {@link RenderDocAPI#triggerCapture()}, {@link RenderDocAPI#triggerMultiFrameCapture(int)} or {@link RenderDocAPI#endFrameCapture()},
+     * while (and right after) a frame is capturing (which also covers the capture keys), and while any future is waiting on a capture.
+     * Otherwise, the interval between checks doubles each time nothing has changed, up to {@value #MAX_POLL_INTERVAL} frames.</p>
+     *
+     * <p>Before anything else, the commands other threads have enqueued into the {@link RenderDocAPI#renderThreadQueue()} are executed.</p>
+     *
+     * @return The new {@link FrameState}, which is also returned by {@link RenderDocAPI#getFrameState()} until the next frame boundary
+     * @see FrameState
+     */
+    public FrameState frameBoundary() {
+        this.renderThreadQueue.drain();
+
+        final FrameState previous = this.frameState;
+
+        final boolean frameCapturing = isFrameCapturing();
+        final boolean targetControlConnected = isTargetControlConnected();
+
+        this.frameArena.reset();
+
+        if (frameCapturing) {
+            // Every captured frame is its own capture file, which needs all of its object annotations
+            resetAnnotationDeduplication();
+        }
+
+        if (this.annotationGate != null && this.annotationGate.frameBoundary(frameCapturing)) {
+            this.annotationGate.replay(this);
+        }
+
+        final int hotFrames = this.hotPollFrames;
+
+        final boolean hot = hotFrames > 0 || frameCapturing || previous.isFrameCapturing() || this.captureRequests.hasPending();
+
+        if (hotFrames > 0) {
+            this.hotPollFrames = hotFrames - 1;
+        }
+
+        @Nullable FrameCapture lastCapture = previous.lastCapture();
+
+        if (hot || --this.framesUntilPoll <= 0) {
+            final int captureCount = getNumCaptures();
+
+            if (captureCount != this.captureCount) {
+                final @Nullable FrameCapture dispatched = dispatchCaptures(captureCount);
+
+                lastCapture = dispatched != null ? dispatched : getCapture(captureCount - 1).orElse(lastCapture);
+
+                this.pollInterval = 1;
+            } else if (hot) {
+                this.pollInterval = 1;
+            } else {
+                this.pollInterval = Math.min(this.pollInterval << 1, MAX_POLL_INTERVAL);
+            }
+
+            this.framesUntilPoll = this.pollInterval;
+        }
+
+        this.captureRequests.frameBoundary();
+
+        final FrameState state = previous.matches(this.captureCount, frameCapturing, targetControlConnected, lastCapture)
+                ? previous
+                : (this.frameState = new FrameState(this.captureCount, frameCapturing, targetControlConnected, lastCapture));
+
+        final @Nullable RenderDocAPIMonitor monitor = this.monitor;
+
+        if (monitor != null) {
+            monitor.frameBoundary(state);
+        }
+
+        for (FrameBoundaryListener listener : this.frameBoundaryListeners) {
+            listener.onFrameBoundary(state);
+        }
+
+        return state;
+    }
+
+    /**
+     * Returns the queue through which other threads can make calls to this {@link RenderDocAPI}, which are executed on the render thread by {@link RenderDocAPI#frameBoundary()}.
+     *
+     * @return The {@link RenderThreadQueue} of this {@link RenderDocAPI}
+     * @see Builder#withRenderThreadQueueCapacity(int)
+     */
+    public RenderThreadQueue renderThreadQueue() {
+        return this.renderThreadQueue;
+    }
+
+    /**
+     * Adds a {@link FrameBoundaryListener} that is called at the end of every {@link RenderDocAPI#frameBoundary()}, on the render thread.
+     *
+     * <p>This method may be called from any thread. Listeners are kept in an array that is copied on every change, so calling them does not allocate.</p>
+     *
+     * @param listener The listener to add
+     * @see RenderDocAPI#removeFrameBoundaryListener(FrameBoundaryListener)
+     */
+    public synchronized void addFrameBoundaryListener(@NotNull FrameBoundaryListener listener) {
+        Objects.requireNonNull(listener);
+
+        final FrameBoundaryListener[] listeners = Arrays.copyOf(this.frameBoundaryListeners, this.frameBoundaryListeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+
+        this.frameBoundaryListeners = listeners;
+    }
+
+    /**
+     * Removes a {@link FrameBoundaryListener} that was added with {@link RenderDocAPI#addFrameBoundaryListener(FrameBoundaryListener)}. This method may be called from any thread, including from the listener itself.
+     *
+     * @param listener The listener to remove
+     * @return {@code true} if the listener was removed
+     */
+    public synchronized boolean removeFrameBoundaryListener(FrameBoundaryListener listener) {
+        final FrameBoundaryListener[] listeners = this.frameBoundaryListeners;
+
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                final FrameBoundaryListener[] removed = new FrameBoundaryListener[listeners.length - 1];
+
+                System.arraycopy(listeners, 0, removed, 0, i);
+                System.arraycopy(listeners, i + 1, removed, i, removed.length - i);
+
+                this.frameBoundaryListeners = removed;
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return The {@link FrameState} taken by the last {@link RenderDocAPI#frameBoundary()}. This method never makes a native call, and is safe to call from any thread.
+     * @see RenderDocAPI#frameBoundary()
+     */
+    public FrameState getFrameState() {
+        return this.frameState;
+    }
+
+    /**
+     * Registers a {@link RenderDocAPIMXBean} for this {@link RenderDocAPI} with the {@link ManagementFactory#getPlatformMBeanServer() platform MBean server}, under {@value RenderDocAPIMXBean#OBJECT_NAME}.
+     * Calling this method again has no effect.
+     *
+     * <p>The MXBean is updated from {@link RenderDocAPI#frameBoundary()}, which <b>must</b> be called every frame for its attributes to change and its operations to take effect.</p>
+     *
+     * @return The {@link ObjectName} of the MXBean
+     * @throws RuntimeException If the MXBean could not be registered, e.g. because another one is registered under the same name
+     * @see RenderDocAPIMXBean
+     */
+    public synchronized ObjectName registerMXBean() {
+        try {
+            final ObjectName name = new ObjectName(RenderDocAPIMXBean.OBJECT_NAME);
+
+            if (this.monitor == null) {
+                final RenderDocAPIMonitor monitor = new RenderDocAPIMonitor(this);
+
+                ManagementFactory.getPlatformMBeanServer().registerMBean(monitor, name);
+
+                this.monitor = monitor;
+            }
+
+            return name;
+        } catch (JMException e) {
+            throw new RuntimeException("Could not register the RenderDocAPIMXBean", e);
+        }
+    }
+
+    /**
+     * Unregisters the {@link RenderDocAPIMXBean} registered by {@link RenderDocAPI#registerMXBean()}, if there is one.
+     *
+     * @throws RuntimeException If the MXBean could not be unregistered
+     */
+    public synchronized void unregisterMXBean() {
+        if (this.monitor == null) {
+            return;
+        }
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(RenderDocAPIMXBean.OBJECT_NAME));
+        } catch (InstanceNotFoundException e) {
+            // Already unregistered by someone else
+        } catch (JMException e) {
+            throw new RuntimeException("Could not unregister the RenderDocAPIMXBean", e);
+        } finally {
+            this.monitor = null;
+        }
+    }
+
+    /**
+     * Returns the per-frame {@link NativeArena}, which is reset on every {@link RenderDocAPI#frameBoundary()}.
+     *
+     * <p>Use it for native memory that is only needed until the end of the frame, such as {@link RenderDocAnnotationValue#toUnion(NativeArena) annotation unions} that are passed around.
+     * It must only be used from the thread that calls {@link RenderDocAPI#frameBoundary()}.</p>
+     *
+     * @return The per-frame {@link NativeArena}
+     * @see com.ajthegreattt.renderdoc4j.memory.NativeMemory
+     */
+    public NativeArena frameArena() {
+        return this.frameArena;
+    }
+
+    /**
+     * Makes {@link RenderDocAPI#frameBoundary()} check the capture count every frame for a while, as a capture may complete soon.
+     *
+     * @param frames The number of frames that are expected to be captured
+     */
+    private void expectCaptures(int frames) {
+        this.hotPollFrames = Math.max(this.hotPollFrames, HOT_POLL_FRAMES + frames);
+    }
+
+    /**
+     * Claims the next {@code count} captures for a new pending request.
+     *
+     * @see CaptureRequests
+     */
+    CompletableFuture<List<FrameCapture>> awaitCaptures(int count) {
+        return this.captureRequests.claim(getNumCaptures(), count);
+    }
+
+    /**
+     * Claims the capture at exactly {@code index}, which may already have been made.
+     *
+     * @see CaptureRequests#claimExact(int)
+     */
+    CompletableFuture<List<FrameCapture>> awaitCapture(int index) {
+        return this.captureRequests.claimExact(index);
     }
 
     /**
@@ -467,7 +841,7 @@ public final class RenderDocAPI {
      */
     //TEST: PASSING
     public int getNumCaptures() {
-        return in().GetNumCaptures.invoke();
+        return in().GetNumCaptures().invoke();
     }
 
     /**
@@ -478,7 +852,7 @@ public final class RenderDocAPI {
      */
     //TEST: PASSING
     public boolean getBooleanCaptureOption(BooleanCaptureOption captureOption) {
-        return in().GetCaptureOptionU32.invoke(captureOption) == 1;
+        return in().GetCaptureOptionU32().invoke(captureOption) == 1;
     }
 
     /**
@@ -489,13 +863,14 @@ public final class RenderDocAPI {
      */
     //TEST: PASSING
     public float getFloatCaptureOption(FloatingPointCaptureOption captureOption) {
-        return in().GetCaptureOptionF32.invoke(captureOption);
+        return in().GetCaptureOptionF32().invoke(captureOption);
     }
 
     /**
      * Returns the {@link RenderDocAPIVersion} being used for the API currently.
      *
-     * <p>This value is determined during {@link RenderDocAPI#INSTANCE Instance} creation, and does not invoke the underlying {@code GetAPIVersion} function.</p>
+     * <p>This value is negotiated during {@link RenderDocAPI#INSTANCE Instance} creation, and is the newest version (no newer than the one requested from the {@link Builder}) that the RenderDoc shared library provides.
+     * It does not invoke the underlying {@code GetAPIVersion} function.</p>
      *
      * @return The {@link RenderDocAPIVersion} in use
      * @see "The RenderDocAPI Javadoc section, <i>'API Versioning'</i> for more information..."
@@ -505,6 +880,22 @@ public final class RenderDocAPI {
         return this.version;
     }
 
+    /**
+     * @return The {@link Capabilities} of the negotiated {@link RenderDocAPIVersion}
+     * @see RenderDocAPI#getAPIVersion()
+     */
+    public Capabilities getCapabilities() {
+        return this.capabilities;
+    }
+
+    /**
+     * @return How the RenderDoc shared library was bound to when this {@link RenderDocAPI} was built
+     * @see Builder#withAttachToInjectedLibrary()
+     */
+    public LibrarySource getLibrarySource() {
+        return this.librarySource;
+    }
+
     /**
      * Calls {@link RenderDocAPI#setFocusToggleKeys} with {@code null}.
      *
@@ -523,7 +914,7 @@ public final class RenderDocAPI {
      */
     //TEST: PASSING
     public void setFocusToggleKeys(@Nullable RenderDocInputButton[] buttons) {
-        in().SetFocusToggleKeys.invoke(buttons, buttons == null ? 0 : buttons.length);
+        in().SetFocusToggleKeys().invoke(buttons, buttons == null ? 0 : buttons.length);
     }
 
     /**
@@ -544,7 +935,7 @@ public final class RenderDocAPI {
      */
     //TEST: PASSING
     public void setCaptureKeys(@Nullable RenderDocInputButton[] buttons) {
-        in().SetCaptureKeys.invoke(buttons, buttons == null ? 0 : buttons.length);
+        in().SetCaptureKeys().invoke(buttons, buttons == null ? 0 : buttons.length);
     }
 
     /**
@@ -558,7 +949,7 @@ public final class RenderDocAPI {
      */
     //TEST: PASSING
     public void unloadCrashHandler() {
-        in().UnloadCrashHandler.invoke();
+        in().UnloadCrashHandler().invoke();
     }
 
     /**
@@ -566,7 +957,7 @@ public final class RenderDocAPI {
      */
     //TEST: PASSING
     public String getCaptureFilePath() {
-        return in().GetCaptureFilePathUnion.GetCaptureFilePathTemplate.invoke();
+        return in().GetCaptureFilePathUnion().GetCaptureFilePathTemplate.invoke();
     }
 
     /**
@@ -588,7 +979,7 @@ public final class RenderDocAPI {
      */
     //TEST: PASSING
     public void setCaptureFilePath(String filePath) {
-        in().SetCaptureFilePathUnion.SetCaptureFilePathTemplate.invoke(filePath);
+        in().SetCaptureFilePathUnion().SetCaptureFilePathTemplate.invoke(filePath);
     }
 
     /**
@@ -609,15 +1000,93 @@ public final class RenderDocAPI {
      */
     //TEST: PASSING
     public void triggerCapture() {
-        in().TriggerCapture.invoke();
+        expectCaptures(1);
+
+        if (this.annotationGate != null) {
+            this.annotationGate.triggered();
+        }
+
+        in().TriggerCapture().invoke();
+    }
+
+    /**
+     * {@link RenderDocAPI#triggerCapture() Triggers} a capture, and returns a future for the resulting {@link FrameCapture}.
+     *
+     * <p>The future is completed from {@link RenderDocAPI#updateCaptureListeners()}, which <b>must</b> be called periodically.
+     * It completes exceptionally if the {@link FrameCapture} could not be processed, or with a {@link java.util.concurrent.TimeoutException TimeoutException} if no capture was made
+     * within a few frames of {@link RenderDocAPI#frameBoundary()}.</p>
+     *
+     * @return A future that completes with the {@link FrameCapture} once it has been written
+     * @see RenderDocAPI#triggerMultiFrameCaptureAsync(int)
+     */
+    public CompletableFuture<FrameCapture> triggerCaptureAsync() {
+        final CompletableFuture<List<FrameCapture>> captures = awaitCaptures(1);
+
+        triggerCapture();
+
+        return captures.thenApply(list -> list.get(0));
     }
 
-    private ByteBuffer allocateFilePathBuffer(int index, IntByReference intPointer) {
+    /**
+     * Takes an arena out of the scratch pool, or creates one if the pool is empty. It <b>must</b> be handed back with {@link #releaseScratchArena(NativeArena)} in a {@code finally} block.
+     *
+     * @return An empty scratch arena that only the calling thread uses until it is released
+     */
+    private NativeArena acquireScratchArena() {
+        final AtomicReferenceArray<NativeArena> arenas = this.scratchArenas;
+
+        for (int i = 0; i < arenas.length(); i++) {
+            final NativeArena arena = arenas.get(i);
+
+            if (arena != null && arenas.compareAndSet(i, arena, null)) {
+                return arena;
+            }
+        }
+
+        return NativeArena.create("RenderDocAPI Scratch", SCRATCH_ARENA_CHUNK_SIZE);
+    }
+
+    /**
+     * Resets the {@code arena} and puts it back into the scratch pool, or frees it if the pool is full.
+     */
+    private void releaseScratchArena(NativeArena arena) {
+        arena.reset();
+
+        final AtomicReferenceArray<NativeArena> arenas = this.scratchArenas;
+
+        for (int i = 0; i < arenas.length(); i++) {
+            if (arenas.get(i) == null && arenas.compareAndSet(i, null, arena)) {
+                return;
+            }
+        }
+
+        arena.close();
+    }
+
+    /**
+     * Frees the native memory of every scratch arena that is not in use right now. Arenas are created again as calls need them.
+     *
+     * <p>The scratch pool is bounded, so this is not needed to keep memory in check. Call it when you are done with RenderDoc for the rest of the process (e.g. after the last capture), to give that memory back.
+     * This method may be called from any thread.</p>
+     */
+    public void freeScratchArenas() {
+        final AtomicReferenceArray<NativeArena> arenas = this.scratchArenas;
+
+        for (int i = 0; i < arenas.length(); i++) {
+            final NativeArena arena = arenas.getAndSet(i, null);
+
+            if (arena != null) {
+                arena.close();
+            }
+        }
+    }
+
+    private ByteBuffer allocateFilePathBuffer(NativeArena arena, int index, IntByReference intPointer) {
         if (this.maxFilePathLength == 0) {
             return null;
         }
 
-        final int invocationResult = in().GetCapture.invoke(index, null, intPointer, null);
+        final int invocationResult = in().GetCapture().invoke(index, null, intPointer, null);
 
         final int realPathLength = intPointer.getValue();
 
@@ -629,7 +1098,7 @@ public final class RenderDocAPI {
 
         intPointer.setValue(realPathLength);
 
-        return ByteBuffer.allocateDirect(realPathLength);
+        return arena.allocateBuffer(realPathLength);
     }
 
     /**
@@ -644,30 +1113,36 @@ public final class RenderDocAPI {
 
         final IntByReference pathLengthByReference = new IntByReference();
 
-        final @Nullable ByteBuffer fileNameBuffer = allocateFilePathBuffer(index, pathLengthByReference);
-
         final LongByReference timeStamp = new LongByReference();
 
-        final int result = in().GetCapture.invoke(index, fileNameBuffer, null, timeStamp);
+        final NativeArena arena = acquireScratchArena();
 
-        if (result == 0) {
-            return Optional.empty();
-        } else {
-            final String fileName;
+        try {
+            final @Nullable ByteBuffer fileNameBuffer = allocateFilePathBuffer(arena, index, pathLengthByReference);
+
+            final int result = in().GetCapture().invoke(index, fileNameBuffer, null, timeStamp);
 
-            if (fileNameBuffer == null) {
-                fileName = "";
+            if (result == 0) {
+                return Optional.empty();
             } else {
-                final int pathLength = pathLengthByReference.getValue();
+                final String fileName;
 
-                final byte[] fileNameArr = new byte[pathLength - 1];
+                if (fileNameBuffer == null) {
+                    fileName = "";
+                } else {
+                    final int pathLength = pathLengthByReference.getValue();
 
-                fileNameBuffer.get(fileNameArr, 0, pathLength - 1);
+                    final byte[] fileNameArr = new byte[pathLength - 1];
 
-                fileName = new String(fileNameArr, StandardCharsets.UTF_8);
-            }
+                    fileNameBuffer.get(fileNameArr, 0, pathLength - 1);
+
+                    fileName = new String(fileNameArr, StandardCharsets.UTF_8);
+                }
 
-            return Optional.of(new FrameCapture(index, fileName, timeStamp.getValue()));
+                return Optional.of(new FrameCapture(index, fileName, timeStamp.getValue()));
+            }
+        } finally {
+            releaseScratchArena(arena);
         }
     }
 
@@ -682,7 +1157,7 @@ public final class RenderDocAPI {
      */
     //TEST: PASSING
     public boolean isTargetControlConnected() {
-        return in().IsTargetControlConnectedUnion.IsTargetControlConnected.invoke() == 1;
+        return in().IsTargetControlConnectedUnion().IsTargetControlConnected.invoke() == 1;
     }
 
     /**
@@ -697,7 +1172,30 @@ public final class RenderDocAPI {
      */
     //TEST: PASSING
     public int launchReplayUI(boolean connectTargetControl, String cmdline) {
-        return in().LaunchReplayUI.invoke(connectTargetControl ? 1 : 0, cmdline);
+        return in().LaunchReplayUI().invoke(connectTargetControl ? 1 : 0, cmdline);
+    }
+
+    /**
+     * Calls {@link #launchReplayUIAsync(boolean, String, long, TimeUnit)} with a timeout of {@value #DEFAULT_REPLAY_UI_TIMEOUT_SECONDS} seconds.
+     */
+    public CompletableFuture<Integer> launchReplayUIAsync(boolean connectTargetControl, String cmdline) {
+        return launchReplayUIAsync(connectTargetControl, cmdline, DEFAULT_REPLAY_UI_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * {@link #launchReplayUI(boolean, String) Launches} the replay UI on a dedicated daemon thread, so that the calling (usually the render) thread is not stalled while the process is spawned.
+     *
+     * <p>If {@code connectTargetControl} is {@code true}, the future only completes once {@link #isTargetControlConnected()} reports the connection, which is polled off the render thread.</p>
+     *
+     * @param connectTargetControl should be set to {@code true} if the UI should immediately connect to the application.
+     * @param cmdline              is an optional UTF-8 null-terminated string to be appended to the command line, e.g. a capture filename. If this parameter is {@code null}, the command line will be unmodified.
+     * @param timeout              The maximum time to wait for the UI to launch (and connect)
+     * @param unit                 The unit of the {@code timeout}
+     * @return A future that completes with the PID of the new process.
+     * It completes exceptionally with an {@link IllegalStateException} if the UI could not be launched, or with a {@link java.util.concurrent.TimeoutException TimeoutException} if it did not launch (and connect) in time.
+     */
+    public CompletableFuture<Integer> launchReplayUIAsync(boolean connectTargetControl, String cmdline, long timeout, @NotNull TimeUnit unit) {
+        return ReplayUILauncher.launch(this, connectTargetControl, cmdline, timeout, unit);
     }
 
     /**
@@ -713,7 +1211,7 @@ public final class RenderDocAPI {
      */
     //TEST: UNDEFINED
     public void removeHooks() {
-        in().ShutdownUnion.RemoveHooks.invoke();
+        in().ShutdownUnion().RemoveHooks.invoke();
     }
 
     /**
@@ -762,7 +1260,47 @@ public final class RenderDocAPI {
      */
     //TEST: PASSING
     public void startFrameCapture() {
-        in().StartFrameCapture.invoke(this.devicePointer.get(), this.windowHandle.get());
+        resetAnnotationDeduplication();
+        in().StartFrameCapture().invoke(this.devicePointer.get(), this.windowHandle.get());
+
+        if (this.annotationGate != null) {
+            this.annotationGate.started();
+            this.annotationGate.replay(this);
+        }
+    }
+
+    /**
+     * Calls {@link RenderDocAPI#beginCapture(String)} without a title.
+     *
+     * @see RenderDocAPI#beginCapture(String)
+     */
+    public CaptureScope beginCapture() {
+        return beginCapture(null);
+    }
+
+    /**
+     * {@link RenderDocAPI#startFrameCapture() Starts} a capture on the current set {@link RenderDocAPI#supplyAPIDevicePointer(long) devicePointer} and {@link RenderDocAPI#supplyWindowHandle(long) windowHandle},
+     * and returns a {@link CaptureScope} that will end (or discard) the capture when it is closed.
+     *
+     * <pre>{@code
+     * try (CaptureScope scope = api.beginCapture("Shadow Pass")) {
+     *     renderShadowPass();
+     *     pending = scope.capture();
+     * }
+     * }</pre>
+     *
+     * @param title The {@link RenderDocAPI#setCaptureTitle(String) title} for the capture, or {@code null} if you would not like to set one
+     * @return The {@link CaptureScope} for the capture that was started
+     * @see CaptureScope
+     */
+    public CaptureScope beginCapture(@Nullable String title) {
+        startFrameCapture();
+
+        if (title != null) {
+            setCaptureTitle(title);
+        }
+
+        return new CaptureScope(this);
     }
 
     /**
@@ -782,12 +1320,14 @@ public final class RenderDocAPI {
     public void setActiveWindow(long devicePointer, long windowHandle) {
         supplyPointers(devicePointer, windowHandle);
 
-        in().SetActiveWindow.invoke(this.devicePointer.get(), this.windowHandle.get());
+        in().SetActiveWindow().invoke(this.devicePointer.get(), this.windowHandle.get());
     }
 
     /**
      * <b><i>Warning: This is an optional operation. If you do not know what you are doing, you most likely do not need to use it.</i></b>
      *
+     * <p>The wrappers handed to the underlying RenderDoc API are cached per handle value, so supplying the same handles every frame does not allocate.</p>
+     *
      * @param devicePointer is a handle to the API ‘device’ object that will be set active. Must be valid.
      * @param windowHandle  is a handle to the platform window handle that will be set active. Must be valid.
      *
@@ -798,8 +1338,8 @@ public final class RenderDocAPI {
      */
     //TEST: PASSING
     public void supplyPointers(long devicePointer, long windowHandle) {
-        this.devicePointer.set(new RenderDocLibrary.RENDERDOC_DevicePointer(devicePointer));
-        this.windowHandle.set(new RenderDocLibrary.RENDERDOC_WindowHandle(windowHandle));
+        this.devicePointer.set(this.devicePointers.get(devicePointer));
+        this.windowHandle.set(this.windowHandles.get(windowHandle));
     }
 
     /**
@@ -812,7 +1352,7 @@ public final class RenderDocAPI {
      */
     //TEST: PASSING
     public boolean isFrameCapturing() {
-        return in().IsFrameCapturing.invoke() == 1;
+        return in().IsFrameCapturing().invoke() == 1;
     }
 
     /**
@@ -849,7 +1389,13 @@ public final class RenderDocAPI {
      */
     //TEST: PASSING
     public boolean endFrameCapture() {
-        return in().EndFrameCapture.invoke(this.devicePointer.get(), this.windowHandle.get()) == 1;
+        expectCaptures(1);
+
+        if (this.annotationGate != null) {
+            this.annotationGate.ended();
+        }
+
+        return in().EndFrameCapture().invoke(this.devicePointer.get(), this.windowHandle.get()) == 1;
     }
 
     /**
@@ -870,7 +1416,49 @@ public final class RenderDocAPI {
             throw new IllegalArgumentException("There can not be less than 1 frame captured");
         }
 
-        in().TriggerMultiFrameCapture.invoke(numFrames);
+        expectCaptures(numFrames);
+
+        if (this.annotationGate != null) {
+            this.annotationGate.triggered();
+        }
+
+        in().TriggerMultiFrameCapture().invoke(numFrames);
+    }
+
+    /**
+     * {@link RenderDocAPI#triggerMultiFrameCapture(int) Triggers} {@code numFrames} sequential captures, and returns a future for all the resulting {@link FrameCapture}s.
+     *
+     * <p>The future is completed from {@link RenderDocAPI#updateCaptureListeners()}, which <b>must</b> be called periodically.
+     * It completes exceptionally if any of the {@link FrameCapture}s could not be processed, or with a {@link java.util.concurrent.TimeoutException TimeoutException} if they were not all made
+     * within a few frames of {@link RenderDocAPI#frameBoundary()}.</p>
+     *
+     * @param numFrames the number of frames to capture, as an unsigned integer.
+     * @return A future that completes with an unmodifiable list of the {@code numFrames} {@link FrameCapture}s, in the order they were captured
+     * @see RenderDocAPI#triggerCaptureAsync()
+     */
+    public CompletableFuture<List<FrameCapture>> triggerMultiFrameCaptureAsync(int numFrames) {
+
+        if (numFrames < 1) {
+            throw new IllegalArgumentException("There can not be less than 1 frame captured");
+        }
+
+        if (!this.capabilities.supportsTriggerMultiFrameCapture()) {
+            final CompletableFuture<List<FrameCapture>> unsupported = new CompletableFuture<>();
+            unsupported.completeExceptionally(new UnsupportedOperationException("TriggerMultiFrameCapture is not available in RenderDoc API " + this.version));
+            return unsupported;
+        }
+
+        final CompletableFuture<List<FrameCapture>> captures = awaitCaptures(numFrames);
+
+        expectCaptures(numFrames);
+
+        if (this.annotationGate != null) {
+            this.annotationGate.triggered();
+        }
+
+        in().TriggerMultiFrameCapture().invoke(numFrames);
+
+        return captures;
     }
 
     /**
@@ -883,7 +1471,7 @@ public final class RenderDocAPI {
      */
     //TEST: PASSING
     public void setCaptureFileComments(@Nullable String filePath, String comments) {
-        in().SetCaptureFileComments.invoke(filePath, comments);
+        in().SetCaptureFileComments().invoke(filePath, comments);
     }
 
     /**
@@ -918,7 +1506,11 @@ public final class RenderDocAPI {
      */
     //TEST: PASSING
     public boolean discardFrameCapture() {
-        return in().DiscardFrameCapture.invoke(this.devicePointer.get(), this.windowHandle.get()) == 1;
+        if (this.annotationGate != null) {
+            this.annotationGate.ended();
+        }
+
+        return in().DiscardFrameCapture().invoke(this.devicePointer.get(), this.windowHandle.get()) == 1;
     }
 
     /**
@@ -934,7 +1526,25 @@ public final class RenderDocAPI {
      */
     //TEST: PASSING
     public boolean showReplayUI() {
-        return in().ShowReplayUI.invoke() == 1;
+        return in().ShowReplayUI().invoke() == 1;
+    }
+
+    /**
+     * Calls {@link #showReplayUIAsync(long, TimeUnit)} with a timeout of {@value #DEFAULT_REPLAY_UI_TIMEOUT_SECONDS} seconds.
+     */
+    public CompletableFuture<Boolean> showReplayUIAsync() {
+        return showReplayUIAsync(DEFAULT_REPLAY_UI_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Requests the replay UI to be {@link #showReplayUI() shown} on a dedicated daemon thread, so that the calling (usually the render) thread is not stalled.
+     *
+     * @param timeout The maximum time to wait for the request to be passed on
+     * @param unit    The unit of the {@code timeout}
+     * @return A future that completes with the result of {@link #showReplayUI()}, or exceptionally with a {@link java.util.concurrent.TimeoutException TimeoutException} if it did not return in time
+     */
+    public CompletableFuture<Boolean> showReplayUIAsync(long timeout, @NotNull TimeUnit unit) {
+        return ReplayUILauncher.show(this, timeout, unit);
     }
 
     /**
@@ -956,7 +1566,7 @@ public final class RenderDocAPI {
      */
     //TEST: PASSING
     public void setCaptureTitle(String title) {
-        in().SetCaptureTitle.invoke(title);
+        in().SetCaptureTitle().invoke(title);
     }
 
     /**
@@ -969,6 +1579,32 @@ public final class RenderDocAPI {
         return setObjectAnnotation(this.devicePointer.get(), object, key, annotationValue);
     }
 
+    /**
+     * Overload of {@link #setObjectAnnotation(RenderDocLibrary.RENDERDOC_DevicePointer, Pointer, String, RenderDocAnnotationValue)}
+     * for APIs that hold their objects as 64-bit handles (e.g. Vulkan), using the {@code devicePointer} stored within the {@link RenderDocAPI} instance.
+     *
+     * <p>The {@link Pointer} wrappers for {@code object} are cached per handle value, so annotating the same objects every frame does not allocate them again. See {@link Builder#withObjectHandleCacheSize(int)}.</p>
+     *
+     * @param object The handle of the API object that will be annotated. Must not be {@code 0}.
+     * @see #supplyAPIDevicePointer(long)
+     */
+    public ReturnResult setObjectAnnotation(long object, @NotNull String key, @Nullable RenderDocAnnotationValue annotationValue) {
+        return setObjectAnnotation(this.devicePointer.get(), this.apiObjects.get(object), key, annotationValue);
+    }
+
+    /**
+     * Overload of {@link #setObjectAnnotation(RenderDocLibrary.RENDERDOC_DevicePointer, Pointer, String, RenderDocAnnotationValue)}
+     * for APIs that hold their device and objects as 64-bit handles (e.g. Vulkan).
+     *
+     * <p>The {@link Pointer} wrappers for {@code devicePointer} and {@code object} are cached per handle value, so annotating the same objects every frame does not allocate them again. See {@link Builder#withObjectHandleCacheSize(int)}.</p>
+     *
+     * @param devicePointer The handle of the API ‘device’ object, or {@code 0} to wildcard match.
+     * @param object        The handle of the API object that will be annotated. Must not be {@code 0}.
+     */
+    public ReturnResult setObjectAnnotation(long devicePointer, long object, @NotNull String key, @Nullable RenderDocAnnotationValue annotationValue) {
+        return setObjectAnnotation(this.devicePointers.get(devicePointer), this.apiObjects.get(object), key, annotationValue);
+    }
+
     /**
      * From the <a href="https://renderdoc.org/docs/in_application_api.html#_CPPv419SetObjectAnnotation23RENDERDOC_DevicePointerPvPKc24RENDERDOC_AnnotationType8uint32_tPK25RENDERDOC_AnnotationValue">Official RenderDoc Documentation</a>:
      * <blockquote>
@@ -1013,16 +1649,70 @@ public final class RenderDocAPI {
      * */
     //TEST: PASSING
     public ReturnResult setObjectAnnotation(@Nullable RenderDocLibrary.RENDERDOC_DevicePointer devicePointer, @Nullable Pointer object, @NotNull String key, @Nullable RenderDocAnnotationValue annotationValue) {
+        final @Nullable AnnotationGate gate = this.annotationGate;
+
+        if (gate != null) {
+            gate.retain(devicePointer, object, key, annotationValue);
+
+            if (!gate.isOpen()) {
+                return ReturnResult.SUCCESS;
+            }
+        }
+
+        return sendObjectAnnotation(devicePointer, object, key, annotationValue);
+    }
+
+    /**
+     * Sends an object annotation past the {@link AnnotationGate}, still skipping it if the {@link AnnotationDeduplicator} has seen it.
+     */
+    ReturnResult sendObjectAnnotation(@Nullable RenderDocLibrary.RENDERDOC_DevicePointer devicePointer, @Nullable Pointer object, @NotNull String key, @Nullable RenderDocAnnotationValue annotationValue) {
+        final @Nullable AnnotationDeduplicator deduplicator = this.annotationDeduplicator;
+
+        if (deduplicator == null) {
+            return invokeSetObjectAnnotation(devicePointer, object, key, annotationValue);
+        }
+
+        final long dedupKey = AnnotationDeduplicator.key(devicePointer, object, key);
+        final long valueHash = annotationValue != null ? annotationValue.valueHash() : 0;
+
+        if (deduplicator.isUnchanged(dedupKey, valueHash)) {
+            return ReturnResult.SUCCESS;
+        }
+
+        final ReturnResult result = invokeSetObjectAnnotation(devicePointer, object, key, annotationValue);
+
+        if (result == ReturnResult.SUCCESS) {
+            deduplicator.remember(dedupKey, valueHash);
+        }
+
+        return result;
+    }
+
+    private ReturnResult invokeSetObjectAnnotation(@Nullable RenderDocLibrary.RENDERDOC_DevicePointer devicePointer, @Nullable Pointer object, @NotNull String key, @Nullable RenderDocAnnotationValue annotationValue) {
         //avoid triple ternary to help the JIT
-        if (annotationValue != null) {
-            return ReturnResult.map(in().SetObjectAnnotation.invoke(devicePointer,
-                object,
-                key,
-                annotationValue.annotationType.value,
-                annotationValue.vectorLength,
+        if (annotationValue != null && annotationValue.isFrozen()) {
+            // A frozen union is already written, so it does not need the scratch arena
+            return ReturnResult.map(in().SetObjectAnnotation().invoke(devicePointer,
+                    object,
+                    key,
+                    annotationValue.annotationType.value,
+                    annotationValue.vectorLength,
                     annotationValue.toUnion()));
+        } else if (annotationValue != null) {
+            final NativeArena arena = acquireScratchArena();
+
+            try {
+                return ReturnResult.map(in().SetObjectAnnotation().invoke(devicePointer,
+                        object,
+                        key,
+                        annotationValue.annotationType.value,
+                        annotationValue.vectorLength,
+                        annotationValue.toUnion(arena)));
+            } finally {
+                releaseScratchArena(arena);
+            }
         } else {
-            return ReturnResult.map(in().SetObjectAnnotation.invoke(devicePointer,
+            return ReturnResult.map(in().SetObjectAnnotation().invoke(devicePointer,
                     object,
                     key,
                     RenderDocAnnotationTypes.EMPTY.value,
@@ -1031,6 +1721,56 @@ public final class RenderDocAPI {
         }
     }
 
+    /**
+     * Forgets every object annotation value remembered by the {@link Builder#withAnnotationDeduplication() deduplication}, so that the next call for each object and key is sent again.
+     *
+     * <p>This is done automatically whenever a capture starts. Call it yourself when handles are reused for new objects (e.g. OpenGL names after {@code glDelete*}),
+     * as a new object with the same handle, key and value would otherwise never be annotated. Does nothing if deduplication is not enabled.</p>
+     *
+     * @see Builder#withAnnotationDeduplication()
+     */
+    public void resetAnnotationDeduplication() {
+        if (this.annotationDeduplicator != null) {
+            this.annotationDeduplicator.clear();
+        }
+    }
+
+    /**
+     * Forgets everything this binding remembers about the object annotations of the {@code object}: the values retained by the {@link Builder#withAnnotationGating() gating},
+     * so that they are not replayed onto a new object that reuses the handle, and the values remembered by the {@link Builder#withAnnotationDeduplication() deduplication}.
+     *
+     * <p>Call this when the object is destroyed. As the deduplication only remembers hashes, it forgets the values of every object, just like {@link #resetAnnotationDeduplication()}.
+     * This method may be called from any thread.</p>
+     *
+     * @param devicePointer The device of the object, or {@code null} to forget the object's annotations for every device
+     * @param object        The object that was destroyed
+     * @return The number of retained annotations that were dropped, which is always {@code 0} without gating
+     */
+    public int forgetObjectAnnotations(@Nullable RenderDocLibrary.RENDERDOC_DevicePointer devicePointer, @Nullable Pointer object) {
+        resetAnnotationDeduplication();
+
+        return this.annotationGate != null ? this.annotationGate.forget(devicePointer, object) : 0;
+    }
+
+    /**
+     * Overload of {@link #forgetObjectAnnotations(RenderDocLibrary.RENDERDOC_DevicePointer, Pointer)} that takes a raw object handle, and forgets its annotations for every device.
+     */
+    public int forgetObjectAnnotations(long object) {
+        return forgetObjectAnnotations(null, this.apiObjects.get(object));
+    }
+
+    /**
+     * Tells whether annotations are currently sent to RenderDoc. Without {@link Builder#withAnnotationGating() gating}, this is always {@code true}.
+     *
+     * <p>Use this to skip building annotation values that would be dropped anyway.</p>
+     *
+     * @return {@code true} if annotations are sent to RenderDoc right now
+     * @see Builder#withAnnotationGating()
+     */
+    public boolean isAnnotationGateOpen() {
+        return this.annotationGate == null || this.annotationGate.isOpen();
+    }
+
     /**
      * Overload of {@link #setCommandAnnotation(RenderDocLibrary.RENDERDOC_DevicePointer, Pointer, String, RenderDocAnnotationValue)}
      * that assumes the {@code devicePointer} is already stored within the {@link RenderDocAPI} instance and passes it in place.
@@ -1041,6 +1781,32 @@ public final class RenderDocAPI {
         return setCommandAnnotation(this.devicePointer.get(), queueOrCommandBuffer, key, annotationValue);
     }
 
+    /**
+     * Overload of {@link #setCommandAnnotation(RenderDocLibrary.RENDERDOC_DevicePointer, Pointer, String, RenderDocAnnotationValue)}
+     * for APIs that hold their queues and command buffers as 64-bit handles (e.g. Vulkan), using the {@code devicePointer} stored within the {@link RenderDocAPI} instance.
+     *
+     * <p>The {@link Pointer} wrappers for {@code queueOrCommandBuffer} are cached per handle value, so annotating the same command buffers every frame does not allocate them again. See {@link Builder#withObjectHandleCacheSize(int)}.</p>
+     *
+     * @param queueOrCommandBuffer The handle of the queue or command buffer, or {@code 0} where the API requires {@code null}.
+     * @see #supplyAPIDevicePointer(long)
+     */
+    public ReturnResult setCommandAnnotation(long queueOrCommandBuffer, @NotNull String key, @Nullable RenderDocAnnotationValue annotationValue) {
+        return setCommandAnnotation(this.devicePointer.get(), this.apiObjects.get(queueOrCommandBuffer), key, annotationValue);
+    }
+
+    /**
+     * Overload of {@link #setCommandAnnotation(RenderDocLibrary.RENDERDOC_DevicePointer, Pointer, String, RenderDocAnnotationValue)}
+     * for APIs that hold their device, queues and command buffers as 64-bit handles (e.g. Vulkan).
+     *
+     * <p>The {@link Pointer} wrappers for {@code devicePointer} and {@code queueOrCommandBuffer} are cached per handle value, so annotating the same command buffers every frame does not allocate them again. See {@link Builder#withObjectHandleCacheSize(int)}.</p>
+     *
+     * @param devicePointer        The handle of the API ‘device’ object, or {@code 0} to wildcard match.
+     * @param queueOrCommandBuffer The handle of the queue or command buffer, or {@code 0} where the API requires {@code null}.
+     */
+    public ReturnResult setCommandAnnotation(long devicePointer, long queueOrCommandBuffer, @NotNull String key, @Nullable RenderDocAnnotationValue annotationValue) {
+        return setCommandAnnotation(this.devicePointers.get(devicePointer), this.apiObjects.get(queueOrCommandBuffer), key, annotationValue);
+    }
+
     /**
      * From the <a href="https://renderdoc.org/docs/in_application_api.html#_CPPv420SetCommandAnnotation23RENDERDOC_DevicePointerPvPKc24RENDERDOC_AnnotationType8uint32_tPK25RENDERDOC_AnnotationValue">Official RenderDoc Documentation</a>:
      * <blockquote>
@@ -1092,16 +1858,35 @@ public final class RenderDocAPI {
      * */
     //TEST:PASSING
     public ReturnResult setCommandAnnotation(@Nullable RenderDocLibrary.RENDERDOC_DevicePointer devicePointer, @Nullable Pointer queueOrCommandBuffer, @NotNull String key, RenderDocAnnotationValue annotationValue) {
+        if (this.annotationGate != null && !this.annotationGate.isOpen()) {
+            // Command annotations only mean something at their point in a captured command stream, so they are dropped rather than retained
+            return ReturnResult.SUCCESS;
+        }
+
         //avoid triple ternary to help the JIT
-        if (annotationValue != null) {
-            return ReturnResult.map(in().SetCommandAnnotation.invoke(devicePointer,
+        if (annotationValue != null && annotationValue.isFrozen()) {
+            // A frozen union is already written, so it does not need the scratch arena
+            return ReturnResult.map(in().SetCommandAnnotation().invoke(devicePointer,
                     queueOrCommandBuffer,
                     key,
                     annotationValue.annotationType.value,
                     annotationValue.vectorLength,
                     annotationValue.toUnion()));
+        } else if (annotationValue != null) {
+            final NativeArena arena = acquireScratchArena();
+
+            try {
+                return ReturnResult.map(in().SetCommandAnnotation().invoke(devicePointer,
+                        queueOrCommandBuffer,
+                        key,
+                        annotationValue.annotationType.value,
+                        annotationValue.vectorLength,
+                        annotationValue.toUnion(arena)));
+            } finally {
+                releaseScratchArena(arena);
+            }
         } else {
-            return ReturnResult.map(in().SetCommandAnnotation.invoke(devicePointer,
+            return ReturnResult.map(in().SetCommandAnnotation().invoke(devicePointer,
                     queueOrCommandBuffer,
                     key,
                     RenderDocAnnotationTypes.EMPTY.value,
@@ -1109,4 +1894,124 @@ public final class RenderDocAPI {
                     null));
         }
     }
+
+    /**
+     * Creates a new stack of {@link CommandAnnotationScopes}, whose nested path is used as the key of command annotations without building key strings.
+     *
+     * @return A new {@link CommandAnnotationScopes}, which should be used from a single thread and {@link CommandAnnotationScopes#close() closed} when no longer needed
+     * @see CommandAnnotationScopes
+     */
+    public CommandAnnotationScopes newCommandAnnotationScopes() {
+        return new CommandAnnotationScopes(this);
+    }
+
+    /**
+     * Sets a command annotation with an already encoded key, reusing the caller's argument array.
+     *
+     * <p>The function pointer is invoked through a {@link Function} rather than the {@link RenderDocLibrary.pRENDERDOC_SetCommandAnnotation} proxy, so that the key can be passed as a {@link Pointer}.</p>
+     *
+     * @param arguments  An array of 6 elements that is only used by one thread
+     * @param encodedKey A UTF-8 encoded, {@code NUL}-terminated key
+     */
+    ReturnResult setCommandAnnotation(Object[] arguments, long queueOrCommandBuffer, Pointer encodedKey, @Nullable RenderDocAnnotationValue annotationValue) {
+        if (this.annotationGate != null && !this.annotationGate.isOpen()) {
+            return ReturnResult.SUCCESS;
+        }
+
+        if (!this.capabilities.supportsAnnotations()) {
+            return ReturnResult.ANNOTATION_NOT_RECOGNIZED;
+        }
+
+        final Function function = commandAnnotationFunction();
+
+        arguments[0] = this.devicePointer.get();
+        arguments[1] = this.apiObjects.get(queueOrCommandBuffer);
+        arguments[2] = encodedKey;
+
+        try {
+            if (annotationValue == null) {
+                arguments[3] = RenderDocAnnotationTypes.EMPTY.value;
+                arguments[4] = 0;
+                arguments[5] = null;
+
+                return ReturnResult.map(function.invokeInt(arguments));
+            }
+
+            // Small Integers are cached, so neither of these allocate
+            arguments[3] = annotationValue.annotationType.value;
+            arguments[4] = annotationValue.vectorLength;
+
+            if (annotationValue.isFrozen()) {
+                arguments[5] = annotationValue.toUnion();
+
+                return ReturnResult.map(function.invokeInt(arguments));
+            }
+
+            final NativeArena arena = acquireScratchArena();
+
+            try {
+                arguments[5] = annotationValue.toUnion(arena);
+
+                return ReturnResult.map(function.invokeInt(arguments));
+            } finally {
+                releaseScratchArena(arena);
+            }
+        } finally {
+            arguments[5] = null;
+        }
+    }
+
+    /**
+     * Creates a new {@link AnnotationRecorder}, which buffers command annotations off-heap on a recording thread so they can be set on a queue at submission time.
+     *
+     * @return A new {@link AnnotationRecorder}, which should be {@link AnnotationRecorder#close() closed} when no longer needed
+     * @see AnnotationRecorder
+     */
+    public AnnotationRecorder newAnnotationRecorder() {
+        return new AnnotationRecorder(this);
+    }
+
+    /**
+     * Sets a command annotation whose key and union are already in native memory, reusing the caller's argument array.
+     *
+     * @param arguments An array of 6 elements that is only used by one thread
+     */
+    ReturnResult setCommandAnnotation(Object[] arguments, @Nullable Pointer queueOrCommandBuffer, Pointer encodedKey, int valueType, int valueVectorWidth, @Nullable Pointer union) {
+        if (this.annotationGate != null && !this.annotationGate.isOpen()) {
+            return ReturnResult.SUCCESS;
+        }
+
+        if (!this.capabilities.supportsAnnotations()) {
+            return ReturnResult.ANNOTATION_NOT_RECOGNIZED;
+        }
+
+        arguments[0] = this.devicePointer.get();
+        arguments[1] = queueOrCommandBuffer;
+        arguments[2] = encodedKey;
+        arguments[3] = valueType;
+        arguments[4] = valueVectorWidth;
+        arguments[5] = union;
+
+        return ReturnResult.map(commandAnnotationFunction().invokeInt(arguments));
+    }
+
+    /**
+     * Must only be called when the negotiated version {@link Capabilities#supportsAnnotations() supports annotations}, since otherwise
+     * {@code SetCommandAnnotation} is a Java no-op, and JNA would build a native trampoline back into it.
+     *
+     * @return The cached handle to the {@code SetCommandAnnotation} function pointer
+     */
+    private Function commandAnnotationFunction() {
+        Function function = this.commandAnnotationFunction;
+
+        if (function == null) {
+            function = this.commandAnnotationFunction = Function.getFunction(CallbackReference.getFunctionPointer(in().SetCommandAnnotation()));
+        }
+
+        return function;
+    }
+
+    @Nullable Pointer apiObject(long handle) {
+        return this.apiObjects.get(handle);
+    }
 }
@@ -31,6 +31,9 @@ import com.ajthegreattt.renderdoc4j.backbone.RenderDocLibrary.pRENDERDOC_Trigger
 import com.ajthegreattt.renderdoc4j.backbone.RenderDocLibrary.pRENDERDOC_UnloadCrashHandler;
 import com.sun.jna.Pointer;
 import com.sun.jna.Structure;
+import com.sun.jna.ptr.IntByReference;
+
+import java.util.function.Consumer;
 
 /**
  * The internal implementation of the RenderDocAPI {@code struct} that stores all {@code function *} for the underlying RenderDoc API.
@@ -122,9 +125,255 @@ public class RenderDocAPIInternal extends Structure {
     public pRENDERDOC_SetObjectAnnotation SetObjectAnnotation;
     public pRENDERDOC_SetCommandAnnotation SetCommandAnnotation;
 
-    RenderDocAPIInternal(Pointer pointer) {
+    RenderDocAPIInternal(Pointer pointer, StartupMode startupMode, Capabilities capabilities) {
         super(pointer);
-        read();
+
+        specialize(capabilities);
+
+        if (startupMode == StartupMode.EAGER) {
+            resolveAll();
+        }
+    }
+
+    /**
+     * Binds every function that is not part of the negotiated {@link RenderDocAPIVersion} to a constant no-op,
+     * so that its field is never read from native memory (which lies past the end of an older struct) and calling it is always safe.
+     *
+     * <p>This must happen before any field is resolved, and is why {@link Structure#read()} is never called on this struct.</p>
+     *
+     * @see Capabilities
+     */
+    private void specialize(Capabilities capabilities) {
+        if (!capabilities.supportsTriggerMultiFrameCapture()) {
+            this.TriggerMultiFrameCapture = numFrames -> { };
+        }
+
+        if (!capabilities.supportsCaptureFileComments()) {
+            this.SetCaptureFileComments = (filePath, comments) -> { };
+        }
+
+        if (!capabilities.supportsDiscardFrameCapture()) {
+            this.DiscardFrameCapture = (device, wndHandle) -> 0;
+        }
+
+        if (!capabilities.supportsShowReplayUI()) {
+            this.ShowReplayUI = () -> 0;
+        }
+
+        if (!capabilities.supportsCaptureTitle()) {
+            this.SetCaptureTitle = title -> { };
+        }
+
+        if (!capabilities.supportsAnnotations()) {
+            this.SetObjectAnnotation = (device, object, key, valueType, valueVectorWidth, value) -> 2;
+            this.SetCommandAnnotation = (device, queueOrCommandBuffer, key, valueType, valueVectorWidth, value) -> 2;
+        }
+    }
+
+    /**
+     * Returns the {@code current} value of a field, or reads it from native memory if it has not been resolved yet.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T resolve(T current, String fieldName) {
+        return current != null ? current : (T) readField(fieldName);
+    }
+
+    // Accessors that resolve their function pointer on first use, in case this struct was not read eagerly.
+
+    public pRENDERDOC_GetAPIVersion GetAPIVersion() {
+        return resolve(this.GetAPIVersion, "GetAPIVersion");
+    }
+
+    public pRENDERDOC_SetCaptureOptionU32 SetCaptureOptionU32() {
+        return resolve(this.SetCaptureOptionU32, "SetCaptureOptionU32");
+    }
+
+    public pRENDERDOC_SetCaptureOptionF32 SetCaptureOptionF32() {
+        return resolve(this.SetCaptureOptionF32, "SetCaptureOptionF32");
+    }
+
+    public pRENDERDOC_GetCaptureOptionU32 GetCaptureOptionU32() {
+        return resolve(this.GetCaptureOptionU32, "GetCaptureOptionU32");
+    }
+
+    public pRENDERDOC_GetCaptureOptionF32 GetCaptureOptionF32() {
+        return resolve(this.GetCaptureOptionF32, "GetCaptureOptionF32");
+    }
+
+    public pRENDERDOC_SetFocusToggleKeys SetFocusToggleKeys() {
+        return resolve(this.SetFocusToggleKeys, "SetFocusToggleKeys");
+    }
+
+    public pRENDERDOC_SetCaptureKeys SetCaptureKeys() {
+        return resolve(this.SetCaptureKeys, "SetCaptureKeys");
+    }
+
+    public pRENDERDOC_GetOverlayBits GetOverlayBits() {
+        return resolve(this.GetOverlayBits, "GetOverlayBits");
+    }
+
+    public pRENDERDOC_MaskOverlayBits MaskOverlayBits() {
+        return resolve(this.MaskOverlayBits, "MaskOverlayBits");
+    }
+
+    public ShutdownUnion ShutdownUnion() {
+        if (this.ShutdownUnion.RemoveHooks == null) {
+            readField("ShutdownUnion");
+        }
+
+        return this.ShutdownUnion;
+    }
+
+    public pRENDERDOC_UnloadCrashHandler UnloadCrashHandler() {
+        return resolve(this.UnloadCrashHandler, "UnloadCrashHandler");
+    }
+
+    public SetCaptureFilePathUnion SetCaptureFilePathUnion() {
+        if (this.SetCaptureFilePathUnion.SetCaptureFilePathTemplate == null) {
+            readField("SetCaptureFilePathUnion");
+        }
+
+        return this.SetCaptureFilePathUnion;
+    }
+
+    public GetCaptureFilePathUnion GetCaptureFilePathUnion() {
+        if (this.GetCaptureFilePathUnion.GetCaptureFilePathTemplate == null) {
+            readField("GetCaptureFilePathUnion");
+        }
+
+        return this.GetCaptureFilePathUnion;
+    }
+
+    public pRENDERDOC_GetNumCaptures GetNumCaptures() {
+        return resolve(this.GetNumCaptures, "GetNumCaptures");
+    }
+
+    public pRENDERDOC_GetCapture GetCapture() {
+        return resolve(this.GetCapture, "GetCapture");
+    }
+
+    public pRENDERDOC_TriggerCapture TriggerCapture() {
+        return resolve(this.TriggerCapture, "TriggerCapture");
+    }
+
+    public IsTargetControlConnectedUnion IsTargetControlConnectedUnion() {
+        if (this.IsTargetControlConnectedUnion.IsTargetControlConnected == null) {
+            readField("IsTargetControlConnectedUnion");
+        }
+
+        return this.IsTargetControlConnectedUnion;
+    }
+
+    public pRENDERDOC_LaunchReplayUI LaunchReplayUI() {
+        return resolve(this.LaunchReplayUI, "LaunchReplayUI");
+    }
+
+    public pRENDERDOC_SetActiveWindow SetActiveWindow() {
+        return resolve(this.SetActiveWindow, "SetActiveWindow");
+    }
+
+    public pRENDERDOC_StartFrameCapture StartFrameCapture() {
+        return resolve(this.StartFrameCapture, "StartFrameCapture");
+    }
+
+    public pRENDERDOC_IsFrameCapturing IsFrameCapturing() {
+        return resolve(this.IsFrameCapturing, "IsFrameCapturing");
+    }
+
+    public pRENDERDOC_EndFrameCapture EndFrameCapture() {
+        return resolve(this.EndFrameCapture, "EndFrameCapture");
+    }
+
+    public pRENDERDOC_TriggerMultiFrameCapture TriggerMultiFrameCapture() {
+        return resolve(this.TriggerMultiFrameCapture, "TriggerMultiFrameCapture");
+    }
+
+    public pRENDERDOC_SetCaptureFileComments SetCaptureFileComments() {
+        return resolve(this.SetCaptureFileComments, "SetCaptureFileComments");
+    }
+
+    public pRENDERDOC_DiscardFrameCapture DiscardFrameCapture() {
+        return resolve(this.DiscardFrameCapture, "DiscardFrameCapture");
+    }
+
+    public pRENDERDOC_ShowReplayUI ShowReplayUI() {
+        return resolve(this.ShowReplayUI, "ShowReplayUI");
+    }
+
+    public pRENDERDOC_SetCaptureTitle SetCaptureTitle() {
+        return resolve(this.SetCaptureTitle, "SetCaptureTitle");
+    }
+
+    public pRENDERDOC_SetObjectAnnotation SetObjectAnnotation() {
+        return resolve(this.SetObjectAnnotation, "SetObjectAnnotation");
+    }
+
+    public pRENDERDOC_SetCommandAnnotation SetCommandAnnotation() {
+        return resolve(this.SetCommandAnnotation, "SetCommandAnnotation");
+    }
+
+    /**
+     * Resolves every function pointer of this struct that has not been resolved yet.
+     */
+    void resolveAll() {
+        GetAPIVersion();
+        SetCaptureOptionU32();
+        SetCaptureOptionF32();
+        GetCaptureOptionU32();
+        GetCaptureOptionF32();
+        SetFocusToggleKeys();
+        SetCaptureKeys();
+        GetOverlayBits();
+        MaskOverlayBits();
+        ShutdownUnion();
+        UnloadCrashHandler();
+        SetCaptureFilePathUnion();
+        GetCaptureFilePathUnion();
+        GetNumCaptures();
+        GetCapture();
+        TriggerCapture();
+        IsTargetControlConnectedUnion();
+        LaunchReplayUI();
+        SetActiveWindow();
+        StartFrameCapture();
+        IsFrameCapturing();
+        EndFrameCapture();
+        TriggerMultiFrameCapture();
+        SetCaptureFileComments();
+        DiscardFrameCapture();
+        ShowReplayUI();
+        SetCaptureTitle();
+        SetObjectAnnotation();
+        SetCommandAnnotation();
+    }
+
+    /**
+     * Resolves a separate copy of the function table on a background daemon thread, and invokes the functions that have no side effects,
+     * so that JNA's proxy classes, reflection caches and invocation paths are warm by the time the application needs them.
+     *
+     * <p>The fully resolved copy is then handed to the {@code publisher}, which must publish it safely (e.g. through a {@code volatile} write) for it to replace the live struct.
+     * Until then, the live struct keeps resolving its function pointers lazily.</p>
+     *
+     * @see StartupMode#WARM_UP
+     */
+    static void warmUp(Pointer pointer, Capabilities capabilities, Consumer<RenderDocAPIInternal> publisher) {
+        final Thread thread = new Thread(() -> {
+            final RenderDocAPIInternal warm = new RenderDocAPIInternal(pointer, StartupMode.LAZY, capabilities);
+
+            warm.resolveAll();
+
+            warm.GetAPIVersion.invoke(new IntByReference(), new IntByReference(), new IntByReference());
+            warm.GetNumCaptures.invoke();
+            warm.GetOverlayBits.invoke();
+            warm.IsFrameCapturing.invoke();
+            warm.IsTargetControlConnectedUnion.IsTargetControlConnected.invoke();
+            warm.GetCaptureFilePathUnion.GetCaptureFilePathTemplate.invoke();
+
+            publisher.accept(warm);
+        }, "RenderDoc4J Warm-Up");
+
+        thread.setDaemon(true);
+        thread.start();
     }
 }
 
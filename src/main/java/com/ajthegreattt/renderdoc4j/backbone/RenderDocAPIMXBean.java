@@ -0,0 +1,91 @@
+package com.ajthegreattt.renderdoc4j.backbone;
+
+import java.util.Map;
+
+/**
+ * The management interface of the {@link RenderDocAPI}, registered with the platform MBean server by {@link RenderDocAPI#registerMXBean()} under {@value #OBJECT_NAME}.
+ *
+ * <p>Every attribute is read from a snapshot that {@link RenderDocAPI#frameBoundary()} refreshes on the render thread, so reading attributes from a monitoring agent never makes a native call.
+ * The capture state is as of the last frame boundary, while the overlay bits and capture options are re-read at most about once per second.</p>
+ *
+ * <p>The operations do not trigger a capture themselves, but enqueue it into the {@link RenderDocAPI#renderThreadQueue()}, so that it is triggered on the render thread at the next frame boundary.</p>
+ *
+ * @see RenderDocAPI#registerMXBean()
+ */
+public interface RenderDocAPIMXBean {
+
+    /**
+     * The {@link javax.management.ObjectName ObjectName} the {@link RenderDocAPIMXBean} is registered under.
+     */
+    String OBJECT_NAME = "com.ajthegreattt.renderdoc4j:type=RenderDocAPI";
+
+    /**
+     * @return The negotiated {@link RenderDocAPIVersion}, e.g. {@code 1.6.0}
+     * @see RenderDocAPI#getAPIVersion()
+     */
+    String getAPIVersion();
+
+    /**
+     * @see FrameState#captureCount()
+     */
+    int getCaptureCount();
+
+    /**
+     * @return The path of the most recent capture, or an empty string if there has not been one yet
+     * @see FrameState#lastCapture()
+     */
+    String getLastCapturePath();
+
+    /**
+     * @return The timestamp of the most recent capture, as reported by RenderDoc, or {@code 0} if there has not been one yet
+     * @see FrameState#lastCapture()
+     */
+    long getLastCaptureTimestamp();
+
+    /**
+     * @see FrameState#isFrameCapturing()
+     */
+    boolean isFrameCapturing();
+
+    /**
+     * @see FrameState#isTargetControlConnected()
+     */
+    boolean isTargetControlConnected();
+
+    /**
+     * @see com.ajthegreattt.renderdoc4j.options.overlay.OverlaySettingBits#getOverlayBits()
+     */
+    int getOverlayBits();
+
+    /**
+     * @return The value of every {@link com.ajthegreattt.renderdoc4j.options.capture.BooleanCaptureOption BooleanCaptureOption}, by name
+     */
+    Map<String, Boolean> getBooleanCaptureOptions();
+
+    /**
+     * @return The value of every {@link com.ajthegreattt.renderdoc4j.options.capture.FloatingPointCaptureOption FloatingPointCaptureOption}, by name
+     */
+    Map<String, Float> getFloatCaptureOptions();
+
+    /**
+     * @return The time, in milliseconds since the epoch, at which the overlay bits and capture options were last read
+     */
+    long getLastRefreshTime();
+
+    /**
+     * Requests a capture of the next frame, which is triggered at the next {@link RenderDocAPI#frameBoundary()}.
+     *
+     * @throws IllegalStateException If the {@link RenderDocAPI#renderThreadQueue()} is full
+     * @see RenderDocAPI#triggerCapture()
+     */
+    void triggerCapture();
+
+    /**
+     * Requests a capture of the next {@code numFrames} frames, which is triggered at the next {@link RenderDocAPI#frameBoundary()}.
+     *
+     * @param numFrames The number of frames to capture
+     * @throws IllegalStateException If the {@link RenderDocAPI#renderThreadQueue()} is full
+     * @see RenderDocAPI#triggerMultiFrameCapture(int)
+     */
+    void triggerMultiFrameCapture(int numFrames);
+}
@@ -0,0 +1,157 @@
+package com.ajthegreattt.renderdoc4j.backbone;
+
+import com.ajthegreattt.renderdoc4j.options.capture.BooleanCaptureOption;
+import com.ajthegreattt.renderdoc4j.options.capture.FloatingPointCaptureOption;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link RenderDocAPIMXBean} of a {@link RenderDocAPI}, which serves every attribute from a {@link Snapshot} published by {@link #frameBoundary(FrameState)} on the render thread.
+ */
+final class RenderDocAPIMonitor implements RenderDocAPIMXBean {
+
+    /**
+     * How often the overlay bits and capture options are re-read, as they take one native call each.
+     */
+    private static final long REFRESH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final RenderDocAPI api;
+
+    private final String version;
+
+    private volatile Snapshot snapshot;
+
+    private long nextRefresh;
+
+    RenderDocAPIMonitor(RenderDocAPI api) {
+        this.api = api;
+        final RenderDocAPIVersion version = api.getAPIVersion();
+
+        this.version = version.major() + "." + version.minor() + "." + version.patch();
+        this.snapshot = new Snapshot(api.getFrameState(), 0, Collections.emptyMap(), Collections.emptyMap(), 0);
+        this.nextRefresh = System.nanoTime();
+    }
+
+    /**
+     * Publishes a new {@link Snapshot} if anything changed. Must be called on the render thread.
+     */
+    void frameBoundary(FrameState state) {
+        final Snapshot previous = this.snapshot;
+        final long now = System.nanoTime();
+
+        if (now - this.nextRefresh >= 0) {
+            this.nextRefresh = now + REFRESH_INTERVAL_NANOS;
+
+            final Map<String, Boolean> booleanOptions = new LinkedHashMap<>();
+            final Map<String, Float> floatOptions = new LinkedHashMap<>();
+
+            for (BooleanCaptureOption option : BooleanCaptureOption.values()) {
+                booleanOptions.put(option.name(), this.api.getBooleanCaptureOption(option));
+            }
+
+            for (FloatingPointCaptureOption option : FloatingPointCaptureOption.values()) {
+                floatOptions.put(option.name(), this.api.getFloatCaptureOption(option));
+            }
+
+            this.snapshot = new Snapshot(state, this.api.getOverlaySettingBits().getOverlayBits(),
+                    Collections.unmodifiableMap(booleanOptions), Collections.unmodifiableMap(floatOptions), System.currentTimeMillis());
+        } else if (previous.state != state) {
+            this.snapshot = new Snapshot(state, previous.overlayBits, previous.booleanOptions, previous.floatOptions, previous.refreshTime);
+        }
+    }
+
+    @Override
+    public String getAPIVersion() {
+        return this.version;
+    }
+
+    @Override
+    public int getCaptureCount() {
+        return this.snapshot.state.captureCount();
+    }
+
+    @Override
+    public String getLastCapturePath() {
+        final @Nullable FrameCapture capture = this.snapshot.state.lastCapture();
+        return capture != null ? capture.fileName() : "";
+    }
+
+    @Override
+    public long getLastCaptureTimestamp() {
+        final @Nullable FrameCapture capture = this.snapshot.state.lastCapture();
+        return capture != null ? capture.timestamp() : 0;
+    }
+
+    @Override
+    public boolean isFrameCapturing() {
+        return this.snapshot.state.isFrameCapturing();
+    }
+
+    @Override
+    public boolean isTargetControlConnected() {
+        return this.snapshot.state.isTargetControlConnected();
+    }
+
+    @Override
+    public int getOverlayBits() {
+        return this.snapshot.overlayBits;
+    }
+
+    @Override
+    public Map<String, Boolean> getBooleanCaptureOptions() {
+        return this.snapshot.booleanOptions;
+    }
+
+    @Override
+    public Map<String, Float> getFloatCaptureOptions() {
+        return this.snapshot.floatOptions;
+    }
+
+    @Override
+    public long getLastRefreshTime() {
+        return this.snapshot.refreshTime;
+    }
+
+    @Override
+    public void triggerCapture() {
+        if (!this.api.renderThreadQueue().triggerCapture()) {
+            throw new IllegalStateException("The render thread queue is full");
+        }
+    }
+
+    @Override
+    public void triggerMultiFrameCapture(int numFrames) {
+        if (numFrames < 1) {
+            throw new IllegalArgumentException("The number of frames to capture must be at least 1");
+        }
+
+        if (!this.api.renderThreadQueue().triggerMultiFrameCapture(numFrames)) {
+            throw new IllegalStateException("The render thread queue is full");
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final FrameState state;
+
+        private final int overlayBits;
+
+        private final Map<String, Boolean> booleanOptions;
+
+        private final Map<String, Float> floatOptions;
+
+        private final long refreshTime;
+
+        private Snapshot(FrameState state, int overlayBits, Map<String, Boolean> booleanOptions, Map<String, Float> floatOptions, long refreshTime) {
+            this.state = state;
+            this.overlayBits = overlayBits;
+            this.booleanOptions = booleanOptions;
+            this.floatOptions = floatOptions;
+            this.refreshTime = refreshTime;
+        }
+    }
+}
@@ -215,11 +215,28 @@ public interface RenderDocLibrary extends Library {
         public String string;
         public Pointer apiObject;
 
+        /**
+         * The native size of this union in bytes.
+         */
+        public static final int SIZE = new RENDERDOC_AnnotationValue().size();
+
         public RENDERDOC_AnnotationValue() {
             super();
         }
 
-        public static class ByReference extends RENDERDOC_AnnotationValue implements com.sun.jna.Structure.ByReference { }
+        public RENDERDOC_AnnotationValue(Pointer memory) {
+            super(memory);
+        }
+
+        public static class ByReference extends RENDERDOC_AnnotationValue implements com.sun.jna.Structure.ByReference {
+            public ByReference() {
+                super();
+            }
+
+            public ByReference(Pointer memory) {
+                super(memory);
+            }
+        }
     }
 
     @Structure.FieldOrder({"identifier", "name"})
@@ -0,0 +1,40 @@
+package com.ajthegreattt.renderdoc4j.backbone;
+
+/**
+ * Holds the {@link RenderDoc} implementation chosen by {@link RenderDoc#getInstance()}, which is initialized on first use.
+ */
+final class RenderDocSelector {
+
+    static final RenderDoc INSTANCE = select();
+
+    private RenderDocSelector() {
+        throw new AssertionError("You may not instantiate this class.");
+    }
+
+    /**
+     * Falls back to the {@link NoOpRenderDoc} if the native API cannot be loaded, as an exception thrown here would leave this class unusable for the rest of the process.
+     */
+    private static RenderDoc select() {
+        if (!isEnabled()) {
+            return NoOpRenderDoc.INSTANCE;
+        }
+
+        try {
+            return RenderDocAPI.getInstance();
+        } catch (RuntimeException | LinkageError e) {
+            System.err.println("RenderDoc4J: Could not load the RenderDoc API, falling back to the no-op implementation (set -D" + RenderDoc.ENABLED_PROPERTY + "=false to skip loading it): " + e);
+
+            return NoOpRenderDoc.INSTANCE;
+        }
+    }
+
+    private static boolean isEnabled() {
+        String value = System.getProperty(RenderDoc.ENABLED_PROPERTY);
+
+        if (value == null) {
+            value = System.getenv(RenderDoc.ENABLED_ENVIRONMENT_VARIABLE);
+        }
+
+        return value == null || !(value.equalsIgnoreCase("false") || value.equals("0"));
+    }
+}
@@ -0,0 +1,458 @@
+package com.ajthegreattt.renderdoc4j.backbone;
+
+import com.ajthegreattt.renderdoc4j.annotations.RenderDocAnnotationValue;
+import com.ajthegreattt.renderdoc4j.options.RenderDocInputButton;
+import com.ajthegreattt.renderdoc4j.options.capture.BooleanCaptureOption;
+import com.ajthegreattt.renderdoc4j.options.capture.FloatingPointCaptureOption;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free, bounded multi-producer single-consumer queue of {@link RenderDocAPI} calls, which any thread can enqueue into and the render thread executes in {@link #drain()}.
+ *
+ * <pre>{@code
+ * // On a gameplay, network or tool thread
+ * api.renderThreadQueue().setCaptureTitle("Checkpoint 3");
+ * api.renderThreadQueue().triggerCapture();
+ *
+ * // On the render thread, once per frame
+ * api.frameBoundary(); // drains the queue first
+ * }</pre>
+ *
+ * <p>The queue is an array of command slots that are allocated once, each with a sequence number (Dmitry Vyukov's bounded queue design).
+ * Enqueuing claims a slot with a single compare-and-set, fills it in and publishes it; it never blocks, never allocates, and never calls into native code.
+ * If every slot is in use, the command is rejected and the method returns {@code false}.</p>
+ *
+ * <p>Commands are executed in the order they were enqueued, by whichever thread calls {@link #drain()}, which <b>must</b> only be one thread at a time.
+ * {@link RenderDocAPI#frameBoundary()} drains the queue before it reads the state of the frame. Results of the calls (e.g. whether {@link RenderDocAPI#endFrameCapture()} succeeded) are discarded.</p>
+ *
+ * <p>Arguments are stored by reference, so annotation values and key arrays must not be modified until the command has been drained.</p>
+ *
+ * @see RenderDocAPI#renderThreadQueue()
+ * @see Builder#withRenderThreadQueueCapacity(int)
+ */
+public final class RenderThreadQueue {
+
+    private static final int TRIGGER_CAPTURE = 1;
+    private static final int TRIGGER_MULTI_FRAME_CAPTURE = 2;
+    private static final int START_FRAME_CAPTURE = 3;
+    private static final int END_FRAME_CAPTURE = 4;
+    private static final int DISCARD_FRAME_CAPTURE = 5;
+    private static final int SET_ACTIVE_WINDOW = 6;
+    private static final int SET_CAPTURE_TITLE = 7;
+    private static final int SET_CAPTURE_FILE_COMMENTS = 8;
+    private static final int SET_CAPTURE_FILE_PATH = 9;
+    private static final int SET_BOOLEAN_CAPTURE_OPTION = 10;
+    private static final int SET_FLOAT_CAPTURE_OPTION = 11;
+    private static final int SET_FOCUS_TOGGLE_KEYS = 12;
+    private static final int SET_CAPTURE_KEYS = 13;
+    private static final int SET_OBJECT_ANNOTATION = 14;
+    private static final int SET_COMMAND_ANNOTATION = 15;
+    private static final int RUN = 16;
+
+    /**
+     * The integer argument of commands that take a device pointer (and window handle), when those were given rather than the ones {@link RenderDocAPI#supplyPointers(long, long) supplied} to the {@link RenderDocAPI}.
+     */
+    private static final int EXPLICIT = 1;
+
+    private final RenderDocAPI api;
+
+    private final int mask;
+
+    /**
+     * The sequence number of every slot. A slot at position {@code p} is free for the producer that claims {@code p} when its sequence is {@code p},
+     * and holds a published command for the consumer when its sequence is {@code p + 1}.
+     */
+    private final AtomicLongArray sequences;
+
+    private final int[] commands;
+
+    private final long[] handles0;
+
+    private final long[] handles1;
+
+    private final int[] ints;
+
+    private final float[] floats;
+
+    private final Object[] references0;
+
+    private final Object[] references1;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Only read and written by the consumer.
+     */
+    private long head;
+
+    /**
+     * @param capacity The number of command slots, which is rounded up to the next power of two
+     */
+    RenderThreadQueue(RenderDocAPI api, int capacity) {
+        final int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+
+        this.api = api;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        this.commands = new int[size];
+        this.handles0 = new long[size];
+        this.handles1 = new long[size];
+        this.ints = new int[size];
+        this.floats = new float[size];
+        this.references0 = new Object[size];
+        this.references1 = new Object[size];
+
+        for (int i = 0; i < size; i++) {
+            this.sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @return The number of command slots
+     */
+    public int capacity() {
+        return this.mask + 1;
+    }
+
+    /**
+     * @return An estimate of the number of commands waiting to be drained
+     */
+    public int size() {
+        return (int) Math.max(0, this.tail.get() - this.head);
+    }
+
+    /**
+     * @see RenderDocAPI#triggerCapture()
+     * @return {@code false} if the queue is full
+     */
+    public boolean triggerCapture() {
+        return this.offer(TRIGGER_CAPTURE, 0, 0, 0, 0, null, null);
+    }
+
+    /**
+     * @see RenderDocAPI#triggerMultiFrameCapture(int)
+     * @return {@code false} if the queue is full
+     */
+    public boolean triggerMultiFrameCapture(int numFrames) {
+        return this.offer(TRIGGER_MULTI_FRAME_CAPTURE, 0, 0, numFrames, 0, null, null);
+    }
+
+    /**
+     * @see RenderDocAPI#startFrameCapture(long, long)
+     * @return {@code false} if the queue is full
+     */
+    public boolean startFrameCapture(long devicePointer, long windowHandle) {
+        return this.offer(START_FRAME_CAPTURE, devicePointer, windowHandle, EXPLICIT, 0, null, null);
+    }
+
+    /**
+     * @see RenderDocAPI#startFrameCapture()
+     * @return {@code false} if the queue is full
+     */
+    public boolean startFrameCapture() {
+        return this.offer(START_FRAME_CAPTURE, 0, 0, 0, 0, null, null);
+    }
+
+    /**
+     * @see RenderDocAPI#endFrameCapture(long, long)
+     * @return {@code false} if the queue is full
+     */
+    public boolean endFrameCapture(long devicePointer, long windowHandle) {
+        return this.offer(END_FRAME_CAPTURE, devicePointer, windowHandle, EXPLICIT, 0, null, null);
+    }
+
+    /**
+     * @see RenderDocAPI#endFrameCapture()
+     * @return {@code false} if the queue is full
+     */
+    public boolean endFrameCapture() {
+        return this.offer(END_FRAME_CAPTURE, 0, 0, 0, 0, null, null);
+    }
+
+    /**
+     * @see RenderDocAPI#discardFrameCapture(long, long)
+     * @return {@code false} if the queue is full
+     */
+    public boolean discardFrameCapture(long devicePointer, long windowHandle) {
+        return this.offer(DISCARD_FRAME_CAPTURE, devicePointer, windowHandle, EXPLICIT, 0, null, null);
+    }
+
+    /**
+     * @see RenderDocAPI#discardFrameCapture()
+     * @return {@code false} if the queue is full
+     */
+    public boolean discardFrameCapture() {
+        return this.offer(DISCARD_FRAME_CAPTURE, 0, 0, 0, 0, null, null);
+    }
+
+    /**
+     * @see RenderDocAPI#setActiveWindow(long, long)
+     * @return {@code false} if the queue is full
+     */
+    public boolean setActiveWindow(long devicePointer, long windowHandle) {
+        return this.offer(SET_ACTIVE_WINDOW, devicePointer, windowHandle, 0, 0, null, null);
+    }
+
+    /**
+     * @see RenderDocAPI#setCaptureTitle(String)
+     * @return {@code false} if the queue is full
+     */
+    public boolean setCaptureTitle(@NotNull String title) {
+        return this.offer(SET_CAPTURE_TITLE, 0, 0, 0, 0, Objects.requireNonNull(title), null);
+    }
+
+    /**
+     * @see RenderDocAPI#setCaptureFileComments(String, String)
+     * @return {@code false} if the queue is full
+     */
+    public boolean setCaptureFileComments(@Nullable String filePath, @NotNull String comments) {
+        return this.offer(SET_CAPTURE_FILE_COMMENTS, 0, 0, 0, 0, filePath, Objects.requireNonNull(comments));
+    }
+
+    /**
+     * @see RenderDocAPI#setCaptureFilePath(String)
+     * @return {@code false} if the queue is full
+     */
+    public boolean setCaptureFilePath(@NotNull String filePath) {
+        return this.offer(SET_CAPTURE_FILE_PATH, 0, 0, 0, 0, Objects.requireNonNull(filePath), null);
+    }
+
+    /**
+     * @see RenderDocAPI#setBooleanCaptureOption(BooleanCaptureOption, boolean)
+     * @return {@code false} if the queue is full
+     */
+    public boolean setBooleanCaptureOption(@NotNull BooleanCaptureOption captureOption, boolean value) {
+        return this.offer(SET_BOOLEAN_CAPTURE_OPTION, 0, 0, value ? 1 : 0, 0, Objects.requireNonNull(captureOption), null);
+    }
+
+    /**
+     * @see RenderDocAPI#setFloatCaptureOption(FloatingPointCaptureOption, float)
+     * @return {@code false} if the queue is full
+     */
+    public boolean setFloatCaptureOption(@NotNull FloatingPointCaptureOption captureOption, float value) {
+        return this.offer(SET_FLOAT_CAPTURE_OPTION, 0, 0, 0, value, Objects.requireNonNull(captureOption), null);
+    }
+
+    /**
+     * @see RenderDocAPI#setFocusToggleKeys(RenderDocInputButton[])
+     * @return {@code false} if the queue is full
+     */
+    public boolean setFocusToggleKeys(@Nullable RenderDocInputButton[] buttons) {
+        return this.offer(SET_FOCUS_TOGGLE_KEYS, 0, 0, 0, 0, buttons, null);
+    }
+
+    /**
+     * @see RenderDocAPI#setCaptureKeys(RenderDocInputButton[])
+     * @return {@code false} if the queue is full
+     */
+    public boolean setCaptureKeys(@Nullable RenderDocInputButton[] buttons) {
+        return this.offer(SET_CAPTURE_KEYS, 0, 0, 0, 0, buttons, null);
+    }
+
+    /**
+     * @see RenderDocAPI#setObjectAnnotation(long, long, String, RenderDocAnnotationValue)
+     * @return {@code false} if the queue is full
+     */
+    public boolean setObjectAnnotation(long devicePointer, long object, @NotNull String key, @Nullable RenderDocAnnotationValue annotationValue) {
+        return this.offer(SET_OBJECT_ANNOTATION, devicePointer, object, EXPLICIT, 0, Objects.requireNonNull(key), annotationValue);
+    }
+
+    /**
+     * @see RenderDocAPI#setObjectAnnotation(long, String, RenderDocAnnotationValue)
+     * @return {@code false} if the queue is full
+     */
+    public boolean setObjectAnnotation(long object, @NotNull String key, @Nullable RenderDocAnnotationValue annotationValue) {
+        return this.offer(SET_OBJECT_ANNOTATION, 0, object, 0, 0, Objects.requireNonNull(key), annotationValue);
+    }
+
+    /**
+     * @see RenderDocAPI#setCommandAnnotation(long, long, String, RenderDocAnnotationValue)
+     * @return {@code false} if the queue is full
+     */
+    public boolean setCommandAnnotation(long devicePointer, long queueOrCommandBuffer, @NotNull String key, @Nullable RenderDocAnnotationValue annotationValue) {
+        return this.offer(SET_COMMAND_ANNOTATION, devicePointer, queueOrCommandBuffer, EXPLICIT, 0, Objects.requireNonNull(key), annotationValue);
+    }
+
+    /**
+     * @see RenderDocAPI#setCommandAnnotation(long, String, RenderDocAnnotationValue)
+     * @return {@code false} if the queue is full
+     */
+    public boolean setCommandAnnotation(long queueOrCommandBuffer, @NotNull String key, @Nullable RenderDocAnnotationValue annotationValue) {
+        return this.offer(SET_COMMAND_ANNOTATION, 0, queueOrCommandBuffer, 0, 0, Objects.requireNonNull(key), annotationValue);
+    }
+
+    /**
+     * Runs a task on the render thread, for calls that need more than one of the commands above, or their results (e.g. {@link RenderDocAPI#triggerCaptureAsync()}).
+     *
+     * <p>Enqueuing the task does not allocate, but a capturing lambda does. Exceptions thrown by the task are propagated by {@link #drain()}.</p>
+     *
+     * @param task The task to run
+     * @return {@code false} if the queue is full
+     */
+    public boolean run(@NotNull Runnable task) {
+        return this.offer(RUN, 0, 0, 0, 0, Objects.requireNonNull(task), null);
+    }
+
+    private boolean offer(int command, long handle0, long handle1, int intValue, float floatValue,
+                          @Nullable Object reference0, @Nullable Object reference1) {
+        long position = this.tail.get();
+
+        int slot;
+
+        while (true) {
+            slot = (int) position & this.mask;
+
+            final long difference = this.sequences.get(slot) - position;
+
+            if (difference == 0) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+
+                position = this.tail.get();
+            } else if (difference < 0) {
+                // The consumer has not freed this slot yet, so the queue is full
+                return false;
+            } else {
+                position = this.tail.get();
+            }
+        }
+
+        this.commands[slot] = command;
+        this.handles0[slot] = handle0;
+        this.handles1[slot] = handle1;
+        this.ints[slot] = intValue;
+        this.floats[slot] = floatValue;
+        this.references0[slot] = reference0;
+        this.references1[slot] = reference1;
+
+        this.sequences.lazySet(slot, position + 1);
+
+        return true;
+    }
+
+    /**
+     * Executes the commands that were enqueued before this call, in order. Must only be called from one thread at a time, which should be the render thread.
+     *
+     * <p>Commands enqueued while draining, including by the commands themselves, are left for the next call, so producers cannot keep the render thread here.
+     * If a command throws, the commands after it stay queued until the next call.</p>
+     *
+     * @return The number of commands that were executed
+     */
+    public int drain() {
+        final long end = this.tail.get();
+
+        int drained = 0;
+
+        while (this.head < end) {
+            final long position = this.head;
+            final int slot = (int) position & this.mask;
+
+            if (this.sequences.get(slot) != position + 1) {
+                return drained;
+            }
+
+            final int command = this.commands[slot];
+            final long handle0 = this.handles0[slot];
+            final long handle1 = this.handles1[slot];
+            final int intValue = this.ints[slot];
+            final float floatValue = this.floats[slot];
+            final Object reference0 = this.references0[slot];
+            final Object reference1 = this.references1[slot];
+
+            this.references0[slot] = null;
+            this.references1[slot] = null;
+
+            this.head = position + 1;
+            this.sequences.lazySet(slot, position + this.mask + 1);
+
+            this.execute(command, handle0, handle1, intValue, floatValue, reference0, reference1);
+
+            drained++;
+        }
+
+        return drained;
+    }
+
+    private void execute(int command, long handle0, long handle1, int intValue, float floatValue, @Nullable Object reference0, @Nullable Object reference1) {
+        final RenderDocAPI api = this.api;
+
+        switch (command) {
+            case TRIGGER_CAPTURE:
+                api.triggerCapture();
+                break;
+            case TRIGGER_MULTI_FRAME_CAPTURE:
+                api.triggerMultiFrameCapture(intValue);
+                break;
+            case START_FRAME_CAPTURE:
+                if (intValue == EXPLICIT) {
+                    api.startFrameCapture(handle0, handle1);
+                } else {
+                    api.startFrameCapture();
+                }
+                break;
+            case END_FRAME_CAPTURE:
+                if (intValue == EXPLICIT) {
+                    api.endFrameCapture(handle0, handle1);
+                } else {
+                    api.endFrameCapture();
+                }
+                break;
+            case DISCARD_FRAME_CAPTURE:
+                if (intValue == EXPLICIT) {
+                    api.discardFrameCapture(handle0, handle1);
+                } else {
+                    api.discardFrameCapture();
+                }
+                break;
+            case SET_ACTIVE_WINDOW:
+                api.setActiveWindow(handle0, handle1);
+                break;
+            case SET_CAPTURE_TITLE:
+                api.setCaptureTitle((String) reference0);
+                break;
+            case SET_CAPTURE_FILE_COMMENTS:
+                api.setCaptureFileComments((String) reference0, (String) reference1);
+                break;
+            case SET_CAPTURE_FILE_PATH:
+                api.setCaptureFilePath((String) reference0);
+                break;
+            case SET_BOOLEAN_CAPTURE_OPTION:
+                api.setBooleanCaptureOption((BooleanCaptureOption) reference0, intValue != 0);
+                break;
+            case SET_FLOAT_CAPTURE_OPTION:
+                api.setFloatCaptureOption((FloatingPointCaptureOption) reference0, floatValue);
+                break;
+            case SET_FOCUS_TOGGLE_KEYS:
+                api.setFocusToggleKeys((RenderDocInputButton[]) reference0);
+                break;
+            case SET_CAPTURE_KEYS:
+                api.setCaptureKeys((RenderDocInputButton[]) reference0);
+                break;
+            case SET_OBJECT_ANNOTATION:
+                if (intValue == EXPLICIT) {
+                    api.setObjectAnnotation(handle0, handle1, (String) reference0, (RenderDocAnnotationValue) reference1);
+                } else {
+                    api.setObjectAnnotation(handle1, (String) reference0, (RenderDocAnnotationValue) reference1);
+                }
+                break;
+            case SET_COMMAND_ANNOTATION:
+                if (intValue == EXPLICIT) {
+                    api.setCommandAnnotation(handle0, handle1, (String) reference0, (RenderDocAnnotationValue) reference1);
+                } else {
+                    api.setCommandAnnotation(handle1, (String) reference0, (RenderDocAnnotationValue) reference1);
+                }
+                break;
+            case RUN:
+                ((Runnable) reference0).run();
+                break;
+            default:
+                throw new IllegalStateException("Unknown command " + command);
+        }
+    }
+}
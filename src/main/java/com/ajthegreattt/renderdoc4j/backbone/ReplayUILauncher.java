@@ -0,0 +1,112 @@
+package com.ajthegreattt.renderdoc4j.backbone;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Calls {@link RenderDocAPI#launchReplayUI(boolean, String)} and {@link RenderDocAPI#showReplayUI()} away from the calling thread.
+ *
+ * <p>Every call runs on its own daemon thread, as launching the replay UI spawns a process and may block for a long time.
+ * Timeouts and the polling of {@link RenderDocAPI#isTargetControlConnected()} run on a single shared daemon thread, which stops when it is idle.</p>
+ *
+ * @see RenderDocAPI#launchReplayUIAsync(boolean, String, long, TimeUnit)
+ * @see RenderDocAPI#showReplayUIAsync(long, TimeUnit)
+ */
+final class ReplayUILauncher {
+
+    /**
+     * How often {@link RenderDocAPI#isTargetControlConnected()} is polled while waiting for the replay UI to connect.
+     */
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    private static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1, runnable -> {
+        final Thread thread = new Thread(runnable, "RenderDoc4J Replay UI Timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        TIMER.setKeepAliveTime(1, TimeUnit.SECONDS);
+        TIMER.allowCoreThreadTimeOut(true);
+        TIMER.setRemoveOnCancelPolicy(true);
+    }
+
+    private ReplayUILauncher() {
+        throw new AssertionError("You may not instantiate this class.");
+    }
+
+    static CompletableFuture<Integer> launch(RenderDocAPI api, boolean connectTargetControl, String cmdline, long timeout, TimeUnit unit) {
+        final CompletableFuture<Integer> future = withTimeout(new CompletableFuture<>(), timeout, unit, "The replay UI did not " + (connectTargetControl ? "connect" : "launch"));
+
+        start("RenderDoc4J Replay UI Launch", future, () -> {
+            final int pid = api.launchReplayUI(connectTargetControl, cmdline);
+
+            if (pid == 0) {
+                future.completeExceptionally(new IllegalStateException("The underlying RenderDoc API failed to launch the replay UI"));
+            } else if (!connectTargetControl || api.isTargetControlConnected()) {
+                future.complete(pid);
+            } else {
+                poll(api, future, pid);
+            }
+
+            return null;
+        });
+
+        return future;
+    }
+
+    static CompletableFuture<Boolean> show(RenderDocAPI api, long timeout, TimeUnit unit) {
+        final CompletableFuture<Boolean> future = withTimeout(new CompletableFuture<>(), timeout, unit, "The replay UI was not shown");
+
+        start("RenderDoc4J Replay UI Show", future, () -> future.complete(api.showReplayUI()));
+
+        return future;
+    }
+
+    private static void poll(RenderDocAPI api, CompletableFuture<Integer> future, int pid) {
+        TIMER.schedule(() -> {
+            if (future.isDone()) {
+                return;
+            }
+
+            try {
+                if (api.isTargetControlConnected()) {
+                    future.complete(pid);
+                } else {
+                    poll(api, future, pid);
+                }
+            } catch (Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+        }, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, long timeout, TimeUnit unit, String message) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("The timeout must be positive");
+        }
+
+        final ScheduledFuture<?> timer = TIMER.schedule(() -> future.completeExceptionally(new TimeoutException(message + " within " + timeout + " " + unit.name().toLowerCase())), timeout, unit);
+
+        future.whenComplete((result, throwable) -> timer.cancel(false));
+
+        return future;
+    }
+
+    private static void start(String name, CompletableFuture<?> future, Callable<?> task) {
+        final Thread thread = new Thread(() -> {
+            try {
+                task.call();
+            } catch (Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+        }, name);
+
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
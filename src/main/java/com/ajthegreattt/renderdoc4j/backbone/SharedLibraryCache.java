@@ -0,0 +1,163 @@
+package com.ajthegreattt.renderdoc4j.backbone;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.jar.JarEntry;
+import java.util.zip.CRC32;
+
+/**
+ * Extracts shared library resources that are packaged inside a jar into a per-user cache directory, so that they can be loaded by JNA.
+ *
+ * <p>Each library is extracted into a directory named by its content hash (CRC-32) and size. For resources inside a jar, both are read from the jar's central directory, so the resource is not read at all when the library is already cached.
+ * A cached library is reused after only a size and hash check, and is otherwise copied with NIO channel transfers and moved into place atomically.</p>
+ *
+ * @see Builder#withSharedLibraryResource(String)
+ * @see Builder#withSharedLibraryCacheDirectory(Path)
+ */
+final class SharedLibraryCache {
+
+    /**
+     * The default cache directory, which is {@code ~/.renderdoc4j/natives}.
+     */
+    static final Path DEFAULT_DIRECTORY = Paths.get(System.getProperty("user.home"), ".renderdoc4j", "natives");
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private SharedLibraryCache() {
+        throw new AssertionError("You may not instantiate this class.");
+    }
+
+    /**
+     * @param resource       The shared library resource
+     * @param fileName       The file name the library should be extracted as
+     * @param cacheDirectory The root directory of the cache
+     * @return The absolute path to the extracted (or already cached) shared library
+     * @throws IOException If the resource could not be read, or the library could not be extracted
+     */
+    static Path extract(@NotNull URL resource, @NotNull String fileName, @NotNull Path cacheDirectory) throws IOException {
+        final long[] key = key(resource);
+
+        final long crc = key[0];
+        final long size = key[1];
+
+        final Path directory = cacheDirectory.resolve(String.format("%08x-%d", crc, size));
+        final Path target = directory.resolve(fileName).toAbsolutePath();
+
+        if (isValid(target, crc, size)) {
+            return target;
+        }
+
+        Files.createDirectories(directory);
+
+        final Path temporary = Files.createTempFile(directory, fileName, ".tmp");
+
+        try {
+            try (InputStream in = resource.openStream();
+                 ReadableByteChannel source = Channels.newChannel(in);
+                 FileChannel destination = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+                long position = 0;
+                long transferred;
+
+                while ((transferred = destination.transferFrom(source, position, BUFFER_SIZE)) > 0) {
+                    position += transferred;
+                }
+            }
+
+            if (!isValid(temporary, crc, size)) {
+                throw new IOException("The extracted shared library [" + fileName + "] does not match its expected size and hash");
+            }
+
+            move(temporary, target);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        if (!isValid(target, crc, size)) {
+            throw new IOException("The cached shared library [" + target + "] does not match its expected size and hash");
+        }
+
+        return target;
+    }
+
+    private static void move(Path temporary, Path target) throws IOException {
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (FileAlreadyExistsException e) {
+            // Another process extracted the same library in the meantime; it is validated by the caller
+        } catch (IOException e) {
+            // The existing library may be in use (and locked) by another process, in which case it is still usable
+            if (!Files.exists(target)) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * @return The CRC-32 and size of the resource, read from the jar's central directory when possible
+     */
+    private static long[] key(URL resource) throws IOException {
+        final URLConnection connection = resource.openConnection();
+
+        if (connection instanceof JarURLConnection) {
+            final JarEntry entry = ((JarURLConnection) connection).getJarEntry();
+
+            if (entry != null && entry.getCrc() != -1 && entry.getSize() != -1) {
+                return new long[] {entry.getCrc(), entry.getSize()};
+            }
+        }
+
+        final CRC32 crc = new CRC32();
+        final byte[] buffer = new byte[BUFFER_SIZE];
+
+        long size = 0;
+
+        try (InputStream in = resource.openStream()) {
+            int read;
+
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+                size += read;
+            }
+        }
+
+        return new long[] {crc.getValue(), size};
+    }
+
+    private static boolean isValid(Path file, long crc, long size) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) != size) {
+            return false;
+        }
+
+        final CRC32 fileCrc = new CRC32();
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                fileCrc.update(buffer);
+                buffer.clear();
+            }
+        }
+
+        return fileCrc.getValue() == crc;
+    }
+}
@@ -0,0 +1,32 @@
+package com.ajthegreattt.renderdoc4j.backbone;
+
+/**
+ * Determines when the function pointers of the underlying RenderDoc API are resolved into JNA proxies.
+ *
+ * <p>Resolving all the function pointers is done reflectively, and is by far the most expensive part of {@link Builder#build()} after loading the shared library itself.</p>
+ *
+ * @see Builder#withStartupMode(StartupMode)
+ * @since 2.1.0
+ */
+public enum StartupMode {
+
+    /**
+     * Each function pointer is resolved the first time it is used.
+     */
+    LAZY,
+
+    /**
+     * Every function pointer is resolved during {@link Builder#build()}.
+     *
+     * <p>This is the default {@link StartupMode}.</p>
+     */
+    EAGER,
+
+    /**
+     * Each function pointer is resolved the first time it is used, like {@link #LAZY}, but a background daemon thread
+     * resolves and exercises a copy of the whole function table right after {@link Builder#build()}, and then swaps it in, so that the first use of each function is cheap.
+     *
+     * <p>Only the functions that have no side effects (e.g. {@link RenderDocAPI#getNumCaptures()}) are invoked by the background thread.</p>
+     */
+    WARM_UP
+}
@@ -0,0 +1,127 @@
+package com.ajthegreattt.renderdoc4j.exclude;
+
+import com.ajthegreattt.renderdoc4j.backbone.Builder;
+import com.ajthegreattt.renderdoc4j.backbone.RenderDocAPI;
+import com.ajthegreattt.renderdoc4j.backbone.StartupMode;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reports the cold start cost of each {@link StartupMode}.
+ *
+ * <p>Since the {@link RenderDocAPI} can only be built once per JVM, every run is made in a fresh child JVM, which is also what a cold start looks like.</p>
+ *
+ * <p>Two times are reported for each run: the time spent in {@link Builder#build()}, and the time until the calls a typical first frame makes have returned.</p>
+ *
+ * <p>System properties:</p>
+ * <ul>
+ *     <li>{@code renderdoc4j.benchmark.runs}: The number of runs per {@link StartupMode} (default {@code 10})</li>
+ *     <li>{@code renderdoc4j.benchmark.library}: An absolute path to the RenderDoc shared library, if it can not be found by name</li>
+ * </ul>
+ */
+public final class StartupBenchmark {
+
+    private static final String LIBRARY_PROPERTY = "renderdoc4j.benchmark.library";
+
+    private StartupBenchmark() {
+        throw new AssertionError("You may not instantiate this class.");
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) {
+            runOnce(StartupMode.valueOf(args[0]));
+            return;
+        }
+
+        final int runs = Integer.getInteger("renderdoc4j.benchmark.runs", 10);
+
+        System.out.printf("%-8s %14s %14s %14s%n", "mode", "build (med)", "build (min)", "first frame");
+
+        for (StartupMode mode : StartupMode.values()) {
+            final long[] build = new long[runs];
+            final long[] firstFrame = new long[runs];
+
+            for (int i = 0; i < runs; ++i) {
+                final long[] result = runChild(mode);
+                build[i] = result[0];
+                firstFrame[i] = result[1];
+            }
+
+            Arrays.sort(build);
+            Arrays.sort(firstFrame);
+
+            System.out.printf("%-8s %11.3f ms %11.3f ms %11.3f ms%n", mode,
+                    build[runs / 2] / 1e6,
+                    build[0] / 1e6,
+                    firstFrame[runs / 2] / 1e6);
+        }
+    }
+
+    private static long[] runChild(StartupMode mode) throws Exception {
+        final List<String> command = new ArrayList<>();
+
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+
+        final String library = System.getProperty(LIBRARY_PROPERTY);
+
+        if (library != null) {
+            command.add("-D" + LIBRARY_PROPERTY + "=" + library);
+        }
+
+        command.add(StartupBenchmark.class.getName());
+        command.add(mode.name());
+
+        final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+        String last = null;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                last = line;
+            }
+        }
+
+        if (process.waitFor() != 0 || last == null) {
+            throw new IllegalStateException("The benchmark run for " + mode + " failed: " + last);
+        }
+
+        final String[] split = last.trim().split(" ");
+
+        return new long[] {Long.parseLong(split[0]), Long.parseLong(split[1])};
+    }
+
+    private static void runOnce(StartupMode mode) {
+        final Builder builder = RenderDocAPI.builder().withStartupMode(mode);
+
+        final String library = System.getProperty(LIBRARY_PROPERTY);
+
+        if (library != null) {
+            builder.withAbsoluteSharedLibraryPath(Paths.get(library));
+        }
+
+        final long start = System.nanoTime();
+
+        final RenderDocAPI api = builder.build();
+
+        final long built = System.nanoTime();
+
+        api.updateCaptureListeners();
+        api.isFrameCapturing();
+        api.getOverlaySettingBits().getOverlayBits();
+
+        final long firstFrame = System.nanoTime();
+
+        System.out.println((built - start) + " " + (firstFrame - start));
+    }
+}
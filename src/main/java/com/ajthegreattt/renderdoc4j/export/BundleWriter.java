@@ -0,0 +1,52 @@
+package com.ajthegreattt.renderdoc4j.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes the framing of a {@link CaptureBundleFormat} around entry contents, which the {@link CaptureBundleExporter} streams straight into the {@link #target}.
+ */
+abstract class BundleWriter {
+
+    final WritableByteChannel target;
+
+    /**
+     * The number of bytes written to the {@link #target} so far, including entry contents.
+     */
+    long position;
+
+    BundleWriter(WritableByteChannel target) {
+        this.target = target;
+    }
+
+    /**
+     * Writes the header of an entry. Exactly {@code size} bytes of content must follow before {@link #endEntry()}.
+     *
+     * @param name     The name of the entry, which may contain {@code /} separators
+     * @param size     The size of the entry's content
+     * @param crc32    The CRC-32 of the entry's content
+     * @param modified The last modification time of the entry, in milliseconds since the epoch
+     */
+    abstract void beginEntry(String name, long size, int crc32, long modified) throws IOException;
+
+    abstract void endEntry() throws IOException;
+
+    /**
+     * Writes the trailer of the bundle. The {@link #target} is not closed.
+     */
+    abstract void finish() throws IOException;
+
+    void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            this.position += this.target.write(buffer);
+        }
+    }
+
+    /**
+     * Accounts for entry content that was transferred to the {@link #target} directly.
+     */
+    void advance(long bytes) {
+        this.position += bytes;
+    }
+}
@@ -0,0 +1,73 @@
+package com.ajthegreattt.renderdoc4j.export;
+
+import com.ajthegreattt.renderdoc4j.backbone.FrameCapture;
+
+/**
+ * A capture that was written into a bundle by a {@link CaptureBundleExporter}, as it is described in the bundle's manifest.
+ */
+public final class CaptureBundleEntry {
+    private final FrameCapture capture;
+    private final String name;
+    private final String title;
+    private final String comments;
+    private final long size;
+    private final int crc32;
+
+    CaptureBundleEntry(FrameCapture capture, String name, String title, String comments, long size, int crc32) {
+        this.capture = capture;
+        this.name = name;
+        this.title = title;
+        this.comments = comments;
+        this.size = size;
+        this.crc32 = crc32;
+    }
+
+    public FrameCapture capture() {
+        return capture;
+    }
+
+    /**
+     * @return The name of the capture's entry within the bundle
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return The title that was given for the capture, or an empty string
+     */
+    public String title() {
+        return title;
+    }
+
+    /**
+     * @return The comments that were given for the capture, or an empty string
+     */
+    public String comments() {
+        return comments;
+    }
+
+    /**
+     * @return The size of the capture file in bytes
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return The CRC-32 of the capture file
+     */
+    public int crc32() {
+        return crc32;
+    }
+
+    @Override
+    public String toString() {
+        return "CaptureBundleEntry[" +
+                "capture=" + capture + ", " +
+                "name=" + name + ", " +
+                "title=" + title + ", " +
+                "size=" + size + ", " +
+                "crc32=" + String.format("%08x", crc32) + ']';
+    }
+}
@@ -0,0 +1,532 @@
+package com.ajthegreattt.renderdoc4j.export;
+
+import com.ajthegreattt.renderdoc4j.backbone.FrameCapture;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Streams a selection of {@link FrameCapture}s, together with a {@value #MANIFEST_NAME} that describes them, into a tar or zip bundle.
+ *
+ * <pre>{@code
+ * CaptureBundleExporter exporter = CaptureBundleExporter.builder(CaptureBundleFormat.ZIP)
+ *         .add(capture, "Shadow Pass", "Flickering cascades on the second split")
+ *         .withBandwidthLimit(32L << 20)
+ *         .build();
+ *
+ * exporter.exportAsync(Paths.get("shadows.zip")).thenAccept(entries -> ...);
+ * }</pre>
+ *
+ * <p>Before anything is written, the CRC-32 of every capture file is computed in parallel. The checksums are recorded in the manifest (and the zip headers),
+ * and a capture file whose size or modification time changes while it is being exported fails the export.</p>
+ *
+ * <p>Capture files are never read onto the heap: they are copied with {@link FileChannel#transferTo(long, long, WritableByteChannel)},
+ * which the operating system can perform without copying when the target is a file or a socket.</p>
+ *
+ * <p>The manifest is the first entry of the bundle, so a reader can look at it without reading the captures. It is a JSON object of the following form:</p>
+ *
+ * <pre>{@code
+ * {
+ *   "created": 1700000000000,
+ *   "captures": [
+ *     {"name": "app_frame120.rdc", "index": 0, "title": "...", "comments": "...", "timestamp": 1700000000, "size": 104857600, "crc32": "1c291ca3"}
+ *   ]
+ * }
+ * }</pre>
+ *
+ * <p>An exporter does not hold any resources, and can be used any number of times and from any thread. The export methods block, so they should not be called from the render thread; use {@link #exportAsync(Path)} instead.</p>
+ */
+public final class CaptureBundleExporter {
+
+    /**
+     * The name of the manifest entry.
+     */
+    public static final String MANIFEST_NAME = "manifest.json";
+
+    private static final int CHECKSUM_BUFFER_SIZE = 1 << 16;
+
+    private static final long MIN_CHUNK_SIZE = 1 << 14;
+
+    private static final long MAX_CHUNK_SIZE = 1 << 22;
+
+    private final CaptureBundleFormat format;
+
+    private final List<Selection> selections;
+
+    private final long bytesPerSecond;
+
+    private final Executor checksumExecutor;
+
+    private CaptureBundleExporter(Builder builder) {
+        this.format = builder.format;
+        this.selections = Collections.unmodifiableList(new ArrayList<>(builder.selections));
+        this.bytesPerSecond = builder.bytesPerSecond;
+        this.checksumExecutor = builder.checksumExecutor;
+    }
+
+    /**
+     * @param format The format of the bundles
+     * @return A new {@link Builder} for an exporter
+     */
+    public static Builder builder(@NotNull CaptureBundleFormat format) {
+        return new Builder(Objects.requireNonNull(format));
+    }
+
+    /**
+     * @return The format of the bundles this exporter writes
+     */
+    public CaptureBundleFormat format() {
+        return this.format;
+    }
+
+    /**
+     * Exports the bundle into {@code file} on a new daemon thread.
+     *
+     * @param file The bundle file, which is created or replaced
+     * @return A future that completes with the entries of the bundle once it has been written, or exceptionally with the {@link IOException} that failed the export
+     * @see #export(Path)
+     */
+    public CompletableFuture<List<CaptureBundleEntry>> exportAsync(@NotNull Path file) {
+        Objects.requireNonNull(file);
+        return this.runAsync(() -> this.export(file));
+    }
+
+    /**
+     * Exports the bundle into {@code target} on a new daemon thread. The channel is not closed, and must not be used by anything else until the future completes.
+     *
+     * @param target The channel to write the bundle into
+     * @return A future that completes with the entries of the bundle once it has been written, or exceptionally with the {@link IOException} that failed the export
+     * @see #export(WritableByteChannel)
+     */
+    public CompletableFuture<List<CaptureBundleEntry>> exportAsync(@NotNull WritableByteChannel target) {
+        Objects.requireNonNull(target);
+        return this.runAsync(() -> this.export(target));
+    }
+
+    /**
+     * Exports the bundle into {@code file} on the calling thread. The file is deleted again if the export fails.
+     *
+     * @param file The bundle file, which is created or replaced
+     * @return The entries of the bundle, in the order they were written
+     * @throws IOException If a capture file could not be read or changed during the export, or the bundle could not be written
+     */
+    public List<CaptureBundleEntry> export(@NotNull Path file) throws IOException {
+        boolean exported = false;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            final List<CaptureBundleEntry> entries = this.export(channel);
+            exported = true;
+            return entries;
+        } finally {
+            if (!exported) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Exports the bundle into {@code target} on the calling thread. The channel is not closed.
+     *
+     * @param target The channel to write the bundle into
+     * @return The entries of the bundle, in the order they were written
+     * @throws IOException If a capture file could not be read or changed during the export, or the bundle could not be written
+     */
+    public List<CaptureBundleEntry> export(@NotNull WritableByteChannel target) throws IOException {
+        final Source[] sources = this.checksum();
+
+        final List<CaptureBundleEntry> entries = new ArrayList<>(sources.length);
+
+        for (Source source : sources) {
+            entries.add(new CaptureBundleEntry(source.selection.capture, source.name, source.selection.title, source.selection.comments, source.size, source.crc32));
+        }
+
+        final BundleWriter writer = this.format.newWriter(target);
+
+        final byte[] manifest = manifest(entries).getBytes(StandardCharsets.UTF_8);
+        final CRC32 manifestCrc = new CRC32();
+        manifestCrc.update(manifest, 0, manifest.length);
+
+        writer.beginEntry(MANIFEST_NAME, manifest.length, (int) manifestCrc.getValue(), System.currentTimeMillis());
+        writer.write(ByteBuffer.wrap(manifest));
+        writer.endEntry();
+
+        final Throttle throttle = new Throttle(this.bytesPerSecond);
+
+        for (Source source : sources) {
+            try (FileChannel channel = FileChannel.open(source.path, StandardOpenOption.READ)) {
+                writer.beginEntry(source.name, source.size, source.crc32, source.modified);
+
+                this.transfer(channel, source, writer, throttle);
+
+                if (channel.size() != source.size || Files.getLastModifiedTime(source.path).toMillis() != source.modified) {
+                    throw new IOException("The capture file [" + source.path + "] changed while it was being exported");
+                }
+
+                writer.endEntry();
+            }
+        }
+
+        writer.finish();
+
+        return Collections.unmodifiableList(entries);
+    }
+
+    private void transfer(FileChannel channel, Source source, BundleWriter writer, Throttle throttle) throws IOException {
+        final long chunkSize = this.bytesPerSecond > 0
+                ? Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, this.bytesPerSecond / 20))
+                : Long.MAX_VALUE;
+
+        long position = 0;
+
+        while (position < source.size) {
+            final long transferred = channel.transferTo(position, Math.min(chunkSize, source.size - position), writer.target);
+
+            if (transferred <= 0) {
+                throw new IOException("The capture file [" + source.path + "] was truncated while it was being exported");
+            }
+
+            position += transferred;
+            writer.advance(transferred);
+
+            throttle.acquire(transferred);
+        }
+    }
+
+    /**
+     * Reads the size and modification time of every capture file, and computes their checksums in parallel.
+     */
+    private Source[] checksum() throws IOException {
+        final Source[] sources = new Source[this.selections.size()];
+
+        final List<CompletableFuture<Integer>> checksums = new ArrayList<>(sources.length);
+
+        final Set<String> names = new HashSet<>();
+
+        for (int i = 0; i < sources.length; i++) {
+            final Selection selection = this.selections.get(i);
+            final Path path = Paths.get(selection.capture.fileName());
+
+            if (!Files.isRegularFile(path)) {
+                throw new IOException("The capture file [" + path + "] does not exist");
+            }
+
+            final Source source = new Source(selection, path, uniqueName(names, path), Files.size(path), Files.getLastModifiedTime(path).toMillis());
+
+            sources[i] = source;
+            checksums.add(CompletableFuture.supplyAsync(() -> crc32(source.path), this.checksumExecutor));
+        }
+
+        for (int i = 0; i < sources.length; i++) {
+            try {
+                sources[i].crc32 = checksums.get(i).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) e.getCause()).getCause();
+                }
+
+                throw e;
+            }
+        }
+
+        return sources;
+    }
+
+    private static int crc32(Path path) {
+        final CRC32 crc = new CRC32();
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(CHECKSUM_BUFFER_SIZE);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return (int) crc.getValue();
+    }
+
+    /**
+     * @return The file name of {@code path}, with a numeric suffix if another capture already uses it
+     */
+    private static String uniqueName(Set<String> names, Path path) {
+        final String fileName = path.getFileName().toString();
+
+        String name = fileName;
+
+        for (int i = 1; !names.add(name) || name.equals(MANIFEST_NAME); i++) {
+            final int dot = fileName.lastIndexOf('.');
+            name = dot > 0 ? fileName.substring(0, dot) + '-' + i + fileName.substring(dot) : fileName + '-' + i;
+        }
+
+        return name;
+    }
+
+    private static String manifest(List<CaptureBundleEntry> entries) {
+        final StringBuilder json = new StringBuilder(128 + entries.size() * 192);
+
+        json.append("{\n  \"created\": ").append(System.currentTimeMillis()).append(",\n  \"captures\": [");
+
+        for (int i = 0; i < entries.size(); i++) {
+            final CaptureBundleEntry entry = entries.get(i);
+
+            json.append(i == 0 ? "\n    {" : ",\n    {");
+            json.append("\"name\": ");
+            quote(json, entry.name());
+            json.append(", \"index\": ").append(entry.capture().index());
+            json.append(", \"title\": ");
+            quote(json, entry.title());
+            json.append(", \"comments\": ");
+            quote(json, entry.comments());
+            json.append(", \"timestamp\": ").append(entry.capture().timestamp());
+            json.append(", \"size\": ").append(entry.size());
+            json.append(", \"crc32\": \"").append(String.format("%08x", entry.crc32())).append("\"}");
+        }
+
+        return json.append(entries.isEmpty() ? "]\n}\n" : "\n  ]\n}\n").toString();
+    }
+
+    private static void quote(StringBuilder json, String string) {
+        json.append('"');
+
+        for (int i = 0; i < string.length(); i++) {
+            final char c = string.charAt(i);
+
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+
+        json.append('"');
+    }
+
+    private CompletableFuture<List<CaptureBundleEntry>> runAsync(Export export) {
+        final CompletableFuture<List<CaptureBundleEntry>> future = new CompletableFuture<>();
+
+        final Thread thread = new Thread(() -> {
+            try {
+                future.complete(export.run());
+            } catch (Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+        }, "RenderDoc4J Capture Export");
+
+        thread.setDaemon(true);
+        thread.start();
+
+        return future;
+    }
+
+    private interface Export {
+        List<CaptureBundleEntry> run() throws IOException;
+    }
+
+    /**
+     * Paces transfers to a number of bytes per second, measured from the start of the export.
+     */
+    private static final class Throttle {
+
+        private final long bytesPerSecond;
+
+        private final long start = System.nanoTime();
+
+        private long transferred;
+
+        private Throttle(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        private void acquire(long bytes) throws IOException {
+            if (this.bytesPerSecond <= 0) {
+                return;
+            }
+
+            this.transferred += bytes;
+
+            final long due = this.start + (long) (this.transferred * (1e9 / this.bytesPerSecond));
+            final long wait = due - System.nanoTime();
+
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("The export was interrupted", e);
+                }
+            }
+        }
+    }
+
+    private static final class Selection {
+
+        private final FrameCapture capture;
+
+        private final String title;
+
+        private final String comments;
+
+        private Selection(FrameCapture capture, String title, String comments) {
+            this.capture = capture;
+            this.title = title;
+            this.comments = comments;
+        }
+    }
+
+    private static final class Source {
+
+        private final Selection selection;
+
+        private final Path path;
+
+        private final String name;
+
+        private final long size;
+
+        private final long modified;
+
+        private int crc32;
+
+        private Source(Selection selection, Path path, String name, long size, long modified) {
+            this.selection = selection;
+            this.path = path;
+            this.name = name;
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+
+    /**
+     * A builder for a {@link CaptureBundleExporter}.
+     */
+    public static final class Builder {
+
+        private final CaptureBundleFormat format;
+
+        private final List<Selection> selections = new ArrayList<>();
+
+        private long bytesPerSecond;
+
+        private Executor checksumExecutor = ForkJoinPool.commonPool();
+
+        private Builder(CaptureBundleFormat format) {
+            this.format = format;
+        }
+
+        /**
+         * Adds a capture without a title or comments.
+         *
+         * @param capture The capture to add
+         * @return This {@link Builder Builder}
+         */
+        public Builder add(@NotNull FrameCapture capture) {
+            return this.add(capture, null, null);
+        }
+
+        /**
+         * Adds a capture, with a title and comments for the manifest.
+         *
+         * <p>RenderDoc can not read back the title or comments of a capture, so they have to be given here to appear in the manifest.</p>
+         *
+         * @param capture  The capture to add
+         * @param title    The title of the capture, if any
+         * @param comments The comments of the capture, if any
+         * @return This {@link Builder Builder}
+         */
+        public Builder add(@NotNull FrameCapture capture, @Nullable String title, @Nullable String comments) {
+            this.selections.add(new Selection(Objects.requireNonNull(capture), title == null ? "" : title, comments == null ? "" : comments));
+            return this;
+        }
+
+        /**
+         * Adds every capture without a title or comments.
+         *
+         * @param captures The captures to add
+         * @return This {@link Builder Builder}
+         */
+        public Builder addAll(@NotNull Iterable<FrameCapture> captures) {
+            for (FrameCapture capture : captures) {
+                this.add(capture);
+            }
+
+            return this;
+        }
+
+        /**
+         * Limits how fast the capture files are written into the bundle. The manifest and the archive framing are not counted.
+         *
+         * @param bytesPerSecond The maximum number of bytes per second, or {@code 0} for no limit (the default)
+         * @return This {@link Builder Builder}
+         * @throws IllegalArgumentException If {@code bytesPerSecond} is negative
+         */
+        public Builder withBandwidthLimit(long bytesPerSecond) {
+            if (bytesPerSecond < 0) {
+                throw new IllegalArgumentException("The bandwidth limit must not be negative");
+            }
+
+            this.bytesPerSecond = bytesPerSecond;
+            return this;
+        }
+
+        /**
+         * Specifies the {@link Executor} the checksums of the capture files are computed on, one task per file. The default is the {@link ForkJoinPool#commonPool() common pool}.
+         *
+         * @param executor The executor for the checksums
+         * @return This {@link Builder Builder}
+         */
+        public Builder withChecksumExecutor(@NotNull Executor executor) {
+            this.checksumExecutor = Objects.requireNonNull(executor);
+            return this;
+        }
+
+        /**
+         * @return A new {@link CaptureBundleExporter} for the captures added so far
+         */
+        public CaptureBundleExporter build() {
+            return new CaptureBundleExporter(this);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.ajthegreattt.renderdoc4j.export;
+
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The container formats a {@link CaptureBundleExporter} can write.
+ *
+ * <p>Both formats store the capture files as they are, since {@code .rdc} files are already compressed.</p>
+ */
+public enum CaptureBundleFormat {
+
+    /**
+     * A POSIX {@code ustar} archive. Entry names that do not fit into the header are written with a {@code pax} extended header.
+     * Each capture file may be at most 8 GiB.
+     */
+    TAR(".tar") {
+        @Override
+        BundleWriter newWriter(WritableByteChannel target) {
+            return new TarBundleWriter(target);
+        }
+    },
+
+    /**
+     * A zip archive with {@code STORED} (uncompressed) entries. ZIP64 is not supported, so the whole bundle may be at most 4 GiB;
+     * use {@link #TAR} for anything larger.
+     */
+    ZIP(".zip") {
+        @Override
+        BundleWriter newWriter(WritableByteChannel target) {
+            return new ZipBundleWriter(target);
+        }
+    };
+
+    private final String extension;
+
+    CaptureBundleFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * @return The file extension of this format, including the leading {@code .}
+     */
+    public String extension() {
+        return this.extension;
+    }
+
+    abstract BundleWriter newWriter(WritableByteChannel target);
+}
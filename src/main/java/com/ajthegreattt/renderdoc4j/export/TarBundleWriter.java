@@ -0,0 +1,141 @@
+package com.ajthegreattt.renderdoc4j.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a POSIX {@code ustar} archive, falling back to a {@code pax} extended header for entry names longer than 100 bytes.
+ */
+final class TarBundleWriter extends BundleWriter {
+
+    private static final int BLOCK_SIZE = 512;
+
+    /**
+     * The largest size that fits into the 11 octal digits of the header's size field.
+     */
+    private static final long MAX_SIZE = 077777777777L;
+
+    private final ByteBuffer header = ByteBuffer.allocate(BLOCK_SIZE);
+
+    private long entrySize;
+
+    TarBundleWriter(WritableByteChannel target) {
+        super(target);
+    }
+
+    @Override
+    void beginEntry(String name, long size, int crc32, long modified) throws IOException {
+        if (size > MAX_SIZE) {
+            throw new IOException("The entry [" + name + "] is larger than the 8 GiB a tar entry can hold");
+        }
+
+        final byte[] encodedName = name.getBytes(StandardCharsets.UTF_8);
+        final long mtime = modified / 1000;
+
+        if (encodedName.length > 100) {
+            final byte[] record = paxRecord("path", encodedName);
+
+            this.writeHeader(ascii("././@PaxHeader"), record.length, mtime, (byte) 'x');
+            this.write(ByteBuffer.wrap(record));
+            this.pad(record.length);
+        }
+
+        this.writeHeader(encodedName, size, mtime, (byte) '0');
+
+        this.entrySize = size;
+    }
+
+    @Override
+    void endEntry() throws IOException {
+        this.pad(this.entrySize);
+    }
+
+    @Override
+    void finish() throws IOException {
+        // Two zero-filled blocks mark the end of the archive
+        this.write(ByteBuffer.allocate(BLOCK_SIZE * 2));
+    }
+
+    private void writeHeader(byte[] name, long size, long mtime, byte type) throws IOException {
+        final ByteBuffer header = this.header;
+
+        header.clear();
+        header.put(new byte[BLOCK_SIZE]);
+
+        header.position(0);
+        header.put(name, 0, Math.min(name.length, 100));
+        putOctal(header, 100, 0644, 8);
+        putOctal(header, 108, 0, 8);
+        putOctal(header, 116, 0, 8);
+        putOctal(header, 124, size, 12);
+        putOctal(header, 136, mtime, 12);
+        header.put(156, type);
+        header.position(257);
+        header.put(ascii("ustar\u000000"));
+
+        // The checksum is computed with the checksum field itself filled with spaces
+        for (int i = 148; i < 156; i++) {
+            header.put(i, (byte) ' ');
+        }
+
+        long checksum = 0;
+
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            checksum += header.get(i) & 0xFF;
+        }
+
+        putOctal(header, 148, checksum, 7);
+
+        header.clear();
+        this.write(header);
+    }
+
+    private void pad(long size) throws IOException {
+        final int remainder = (int) (size % BLOCK_SIZE);
+
+        if (remainder != 0) {
+            this.write(ByteBuffer.allocate(BLOCK_SIZE - remainder));
+        }
+    }
+
+    /**
+     * Writes {@code value} as zero-padded octal digits followed by a {@code NUL}, filling {@code length} bytes.
+     */
+    private static void putOctal(ByteBuffer header, int offset, long value, int length) {
+        final String digits = Long.toOctalString(value);
+
+        for (int i = 0; i < length - 1; i++) {
+            final int digit = i - (length - 1 - digits.length());
+            header.put(offset + i, digit < 0 ? (byte) '0' : (byte) digits.charAt(digit));
+        }
+
+        header.put(offset + length - 1, (byte) 0);
+    }
+
+    /**
+     * Encodes a {@code pax} record, which is prefixed with its own length in decimal.
+     */
+    private static byte[] paxRecord(String key, byte[] value) {
+        final int body = key.length() + value.length + 3;
+
+        int length = body + Integer.toString(body).length();
+
+        if (Integer.toString(length).length() != Integer.toString(body).length()) {
+            length++;
+        }
+
+        final ByteBuffer record = ByteBuffer.allocate(length);
+
+        record.put(ascii(length + " " + key + "="));
+        record.put(value);
+        record.put((byte) '\n');
+
+        return record.array();
+    }
+
+    private static byte[] ascii(String string) {
+        return string.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,171 @@
+package com.ajthegreattt.renderdoc4j.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a zip archive of {@code STORED} entries.
+ *
+ * <p>The CRC-32 and size of every entry are known before its content is written, so no data descriptors are needed and the content can be streamed without buffering.</p>
+ */
+final class ZipBundleWriter extends BundleWriter {
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+
+    private static final int CENTRAL_HEADER = 0x02014b50;
+
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+
+    private static final int VERSION = 10;
+
+    /**
+     * General purpose flag bit 11, which marks the entry name as UTF-8.
+     */
+    private static final int UTF8_FLAG = 1 << 11;
+
+    private static final long MAX_VALUE = 0xFFFFFFFFL;
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    private Entry current;
+
+    ZipBundleWriter(WritableByteChannel target) {
+        super(target);
+    }
+
+    @Override
+    void beginEntry(String name, long size, int crc32, long modified) throws IOException {
+        final Entry entry = new Entry(name.getBytes(StandardCharsets.UTF_8), size, crc32, dosTime(modified), this.position);
+
+        if (entry.offset + size > MAX_VALUE) {
+            throw new IOException("The bundle would be larger than 4 GiB, which requires ZIP64. Export it as a TAR instead");
+        }
+
+        if (this.entries.size() == 0xFFFF) {
+            throw new IOException("A zip bundle can not hold more than 65535 entries");
+        }
+
+        final ByteBuffer header = buffer(30 + entry.name.length)
+                .putInt(LOCAL_HEADER)
+                .putShort((short) VERSION)
+                .putShort((short) UTF8_FLAG)
+                .putShort((short) 0)
+                .putInt(entry.dosTime)
+                .putInt(entry.crc32)
+                .putInt((int) entry.size)
+                .putInt((int) entry.size)
+                .putShort((short) entry.name.length)
+                .putShort((short) 0)
+                .put(entry.name);
+
+        header.flip();
+        this.write(header);
+
+        this.current = entry;
+    }
+
+    @Override
+    void endEntry() {
+        this.entries.add(this.current);
+        this.current = null;
+    }
+
+    @Override
+    void finish() throws IOException {
+        final long start = this.position;
+
+        for (Entry entry : this.entries) {
+            final ByteBuffer header = buffer(46 + entry.name.length)
+                    .putInt(CENTRAL_HEADER)
+                    .putShort((short) VERSION)
+                    .putShort((short) VERSION)
+                    .putShort((short) UTF8_FLAG)
+                    .putShort((short) 0)
+                    .putInt(entry.dosTime)
+                    .putInt(entry.crc32)
+                    .putInt((int) entry.size)
+                    .putInt((int) entry.size)
+                    .putShort((short) entry.name.length)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putInt(0)
+                    .putInt((int) entry.offset)
+                    .put(entry.name);
+
+            header.flip();
+            this.write(header);
+        }
+
+        final long size = this.position - start;
+
+        if (this.position > MAX_VALUE) {
+            throw new IOException("The bundle would be larger than 4 GiB, which requires ZIP64. Export it as a TAR instead");
+        }
+
+        final ByteBuffer end = buffer(22)
+                .putInt(END_OF_CENTRAL_DIRECTORY)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) this.entries.size())
+                .putShort((short) this.entries.size())
+                .putInt((int) size)
+                .putInt((int) start)
+                .putShort((short) 0);
+
+        end.flip();
+        this.write(end);
+    }
+
+    private static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * @return The MS-DOS date (high 16 bits) and time (low 16 bits) of {@code millis} in the local time zone, clamped to 1980, which is the earliest date it can represent
+     */
+    private static int dosTime(long millis) {
+        final LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+
+        if (time.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+
+        return (time.getYear() - 1980) << 25
+                | time.getMonthValue() << 21
+                | time.getDayOfMonth() << 16
+                | time.getHour() << 11
+                | time.getMinute() << 5
+                | time.getSecond() >> 1;
+    }
+
+    private static final class Entry {
+
+        private final byte[] name;
+
+        private final long size;
+
+        private final int crc32;
+
+        private final int dosTime;
+
+        private final long offset;
+
+        private Entry(byte[] name, long size, int crc32, int dosTime, long offset) {
+            this.name = name;
+            this.size = size;
+            this.crc32 = crc32;
+            this.dosTime = dosTime;
+            this.offset = offset;
+        }
+    }
+}
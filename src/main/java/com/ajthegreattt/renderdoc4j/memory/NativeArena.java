@@ -0,0 +1,253 @@
+package com.ajthegreattt.renderdoc4j.memory;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Objects;
+
+/**
+ * A region of native memory whose allocations are all freed at once, either by {@link #reset() resetting} it or by {@link #close() closing} it, instead of whenever the garbage collector gets to them.
+ *
+ * <p>Small allocations are bumped out of fixed-size chunks, which are kept across resets, so an arena that is reset every frame stops allocating native memory once it has seen its largest frame.
+ * Allocations larger than half a chunk get a block of their own, which is freed on the next reset.</p>
+ *
+ * <p>There are two ways to use an arena:</p>
+ * <ul>
+ *     <li><b>Per-frame</b>, for transient allocations that only need to live until the end of the frame.
+ *     {@link com.ajthegreattt.renderdoc4j.backbone.RenderDocAPI#frameArena() RenderDocAPI#frameArena()} is reset on every {@link com.ajthegreattt.renderdoc4j.backbone.RenderDocAPI#frameBoundary() frameBoundary()}.</li>
+ *     <li><b>Long-lived</b>, for allocations that share a lifetime, which are all freed when the arena is closed:
+ *     <pre>{@code
+ * try (NativeArena arena = NativeArena.create("Level Resources")) {
+ *     ...
+ * }
+ *     }</pre></li>
+ * </ul>
+ *
+ * <p>Every arena is accounted for in {@link NativeMemory#liveBytes()}, and is reported by {@link NativeMemory} if it is garbage collected without being closed.</p>
+ *
+ * <p>This class is not thread-safe. Allocations are zeroed and aligned to 8 bytes, and must not be used after the arena is reset or closed.</p>
+ *
+ * @see NativeMemory
+ */
+public final class NativeArena implements AutoCloseable {
+
+    /**
+     * The default size of each chunk.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private static final int ALIGNMENT = 8;
+
+    private final int chunkSize;
+
+    private final ArrayList<Memory> chunks = new ArrayList<>(1);
+
+    private final ArrayList<Memory> largeAllocations = new ArrayList<>(0);
+
+    private final NativeMemory.ArenaState state;
+
+    private final NativeMemory.Tracker tracker;
+
+    private int chunk = -1;
+
+    private long offset;
+
+    private boolean closed;
+
+    private NativeArena(String name, int chunkSize) {
+        this.chunkSize = chunkSize;
+        this.state = new NativeMemory.ArenaState(name);
+        this.tracker = NativeMemory.track(this, this.state);
+    }
+
+    /**
+     * Calls {@link #create(String, int)} with the {@link #DEFAULT_CHUNK_SIZE}.
+     */
+    public static NativeArena create(@NotNull String name) {
+        return create(name, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param name      The name of the arena, which is used when it is reported as a leak
+     * @param chunkSize The size of each chunk, which should fit everything allocated between two resets for the arena to only ever use one chunk
+     * @return A new, empty {@link NativeArena}. No native memory is allocated until the first allocation.
+     */
+    public static NativeArena create(@NotNull String name, int chunkSize) {
+        Objects.requireNonNull(name);
+
+        if (chunkSize < ALIGNMENT) {
+            throw new IllegalArgumentException("The chunk size of a NativeArena must be at least " + ALIGNMENT + " bytes");
+        }
+
+        return new NativeArena(name, chunkSize);
+    }
+
+    /**
+     * @param size The number of bytes to allocate
+     * @return A pointer to {@code size} zeroed bytes, which are valid until this arena is reset or closed
+     * @throws IllegalStateException If this arena is closed
+     */
+    public Pointer allocate(long size) {
+        checkAllocation(size);
+
+        if (size > this.chunkSize / 2) {
+            return allocateLarge(size);
+        }
+
+        final Memory chunk = bump(size);
+
+        final Pointer pointer = chunk.share(this.offset - align(size), size);
+        pointer.clear(size);
+
+        return pointer;
+    }
+
+    /**
+     * Like {@link #allocate(long)}, but returns the native address of the allocation rather than a {@link Pointer} to it,
+     * so that allocations that fit in a chunk do not create any object.
+     *
+     * @param size The number of bytes to allocate
+     * @return The address of {@code size} zeroed bytes, which are valid until this arena is reset or closed
+     * @throws IllegalStateException If this arena is closed
+     */
+    public long allocateAddress(long size) {
+        checkAllocation(size);
+
+        if (size > this.chunkSize / 2) {
+            return Pointer.nativeValue(allocateLarge(size));
+        }
+
+        final Memory chunk = bump(size);
+        final long offset = this.offset - align(size);
+
+        chunk.setMemory(offset, size, (byte) 0);
+
+        return Pointer.nativeValue(chunk) + offset;
+    }
+
+    private void checkAllocation(long size) {
+        if (this.closed) {
+            throw new IllegalStateException("The NativeArena [" + this.state.name + "] is closed");
+        }
+
+        if (size < 1) {
+            throw new IllegalArgumentException("Can not allocate less than 1 byte");
+        }
+    }
+
+    private Memory allocateLarge(long size) {
+        final Memory memory = new Memory(size);
+        memory.clear();
+
+        this.largeAllocations.add(memory);
+        account(size);
+
+        return memory;
+    }
+
+    /**
+     * Reserves {@code size} bytes at the end of the current chunk, moving on to the next chunk if they do not fit.
+     *
+     * @return The chunk the bytes were reserved in, which end at the new {@link #offset}
+     */
+    private Memory bump(long size) {
+        final long aligned = align(size);
+
+        if (this.chunk < 0 || this.offset + aligned > this.chunkSize) {
+            nextChunk();
+        }
+
+        this.offset += aligned;
+
+        return this.chunks.get(this.chunk);
+    }
+
+    private static long align(long size) {
+        return (size + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    /**
+     * {@link #allocate(long) Allocates} {@code size} bytes, and wraps them in a native-order {@link ByteBuffer}.
+     */
+    public ByteBuffer allocateBuffer(int size) {
+        return allocate(size).getByteBuffer(0, size).order(ByteOrder.nativeOrder());
+    }
+
+    private void nextChunk() {
+        if (++this.chunk == this.chunks.size()) {
+            this.chunks.add(new Memory(this.chunkSize));
+            account(this.chunkSize);
+        }
+
+        this.offset = 0;
+    }
+
+    private void account(long bytes) {
+        this.state.bytes += bytes;
+        NativeMemory.reserve(bytes);
+    }
+
+    /**
+     * Frees every allocation of this arena at once. The chunks are kept for the next allocations, while large allocations are freed.
+     */
+    public void reset() {
+        freeLargeAllocations();
+
+        this.chunk = this.chunks.isEmpty() ? -1 : 0;
+        this.offset = 0;
+    }
+
+    private void freeLargeAllocations() {
+        if (this.largeAllocations.isEmpty()) {
+            return;
+        }
+
+        long freed = 0;
+
+        for (Memory memory : this.largeAllocations) {
+            freed += memory.size();
+            memory.close();
+        }
+
+        this.largeAllocations.clear();
+
+        this.state.bytes -= freed;
+        NativeMemory.release(freed);
+    }
+
+    /**
+     * @return The number of native bytes this arena currently holds, including unused chunk space
+     */
+    public long reservedBytes() {
+        return this.state.bytes;
+    }
+
+    /**
+     * Frees all native memory of this arena. Calling this method more than once has no effect.
+     */
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+
+        freeLargeAllocations();
+
+        for (Memory memory : this.chunks) {
+            memory.close();
+        }
+
+        this.chunks.clear();
+
+        NativeMemory.release(this.state.bytes);
+        this.state.bytes = 0;
+
+        NativeMemory.untrack(this.tracker);
+    }
+}
@@ -0,0 +1,179 @@
+package com.ajthegreattt.renderdoc4j.memory;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Accounts for the native memory held by every {@link NativeArena}, and optionally detects arenas that were never closed.
+ *
+ * <p>{@link #liveBytes()} is always tracked, and is cheap enough to read every frame, e.g. to plot it next to the process' resident memory.</p>
+ *
+ * <p>Leak detection is off by default, and is enabled with the {@code renderdoc4j.leakDetection} system property or {@link #setLeakDetection(boolean)}.
+ * While it is enabled, every new arena records the stack trace it was created from. An arena that is garbage collected without being closed is then reported,
+ * along with that stack trace, to the {@link #setLeakReporter(Consumer) leak reporter}, which prints to {@link System#err} by default.
+ * {@link #unreleased()} describes every arena that is still open.</p>
+ *
+ * @see NativeArena
+ */
+public final class NativeMemory {
+
+    private static final AtomicLong LIVE_BYTES = new AtomicLong();
+
+    private static final ReferenceQueue<NativeArena> QUEUE = new ReferenceQueue<>();
+
+    private static final Set<Tracker> TRACKERS = ConcurrentHashMap.newKeySet();
+
+    private static volatile boolean leakDetection = Boolean.getBoolean("renderdoc4j.leakDetection");
+
+    private static volatile Consumer<String> leakReporter = System.err::println;
+
+    private NativeMemory() {
+        throw new AssertionError("You may not instantiate this class.");
+    }
+
+    /**
+     * @return The number of native bytes currently held by all {@link NativeArena}s that have not been closed (or garbage collected)
+     */
+    public static long liveBytes() {
+        pollLeaks();
+        return LIVE_BYTES.get();
+    }
+
+    /**
+     * @return The number of {@link NativeArena}s that have not been closed (or garbage collected)
+     */
+    public static int liveArenas() {
+        pollLeaks();
+        return TRACKERS.size();
+    }
+
+    /**
+     * @return {@code true} if new {@link NativeArena}s record where they were created
+     */
+    public static boolean isLeakDetectionEnabled() {
+        return leakDetection;
+    }
+
+    /**
+     * Enables or disables recording where new {@link NativeArena}s are created. Arenas that already exist are not affected.
+     *
+     * <p>Recording a stack trace for every arena is expensive, so this is meant for debugging only.</p>
+     *
+     * @param enabled {@code true} to enable leak detection
+     */
+    public static void setLeakDetection(boolean enabled) {
+        leakDetection = enabled;
+    }
+
+    /**
+     * @param reporter Receives a description of every {@link NativeArena} that was garbage collected without being closed
+     */
+    public static void setLeakReporter(@NotNull Consumer<String> reporter) {
+        leakReporter = Objects.requireNonNull(reporter);
+    }
+
+    /**
+     * @return A description of every {@link NativeArena} that is still open, including where it was created if leak detection was enabled at the time
+     */
+    public static List<String> unreleased() {
+        pollLeaks();
+
+        final List<String> descriptions = new ArrayList<>(TRACKERS.size());
+
+        for (Tracker tracker : TRACKERS) {
+            descriptions.add(tracker.state.describe());
+        }
+
+        return descriptions;
+    }
+
+    static Tracker track(NativeArena arena, ArenaState state) {
+        pollLeaks();
+
+        if (leakDetection) {
+            state.site = new Throwable("NativeArena [" + state.name + "] was created here");
+        }
+
+        final Tracker tracker = new Tracker(arena, state);
+        TRACKERS.add(tracker);
+
+        return tracker;
+    }
+
+    static void untrack(Tracker tracker) {
+        TRACKERS.remove(tracker);
+        tracker.clear();
+    }
+
+    static void reserve(long bytes) {
+        LIVE_BYTES.addAndGet(bytes);
+    }
+
+    static void release(long bytes) {
+        LIVE_BYTES.addAndGet(-bytes);
+    }
+
+    /**
+     * Accounts for arenas that were garbage collected without being closed. Their native memory has already been freed by JNA at this point.
+     */
+    private static void pollLeaks() {
+        Tracker tracker;
+
+        while ((tracker = (Tracker) QUEUE.poll()) != null) {
+            if (TRACKERS.remove(tracker)) {
+                release(tracker.state.bytes);
+                leakReporter.accept("Leaked " + tracker.state.describe());
+            }
+        }
+    }
+
+    static final class Tracker extends PhantomReference<NativeArena> {
+
+        private final ArenaState state;
+
+        private Tracker(NativeArena arena, ArenaState state) {
+            super(arena, QUEUE);
+            this.state = state;
+        }
+    }
+
+    /**
+     * The part of a {@link NativeArena} that outlives it, so that a leak can still be described and accounted for.
+     */
+    static final class ArenaState {
+
+        final String name;
+
+        volatile long bytes;
+
+        Throwable site;
+
+        ArenaState(String name) {
+            this.name = name;
+        }
+
+        private String describe() {
+            final String description = "NativeArena [" + this.name + "] holding " + this.bytes + " bytes";
+
+            if (this.site == null) {
+                return description + " (enable leak detection to record where it was created)";
+            }
+
+            final StringWriter writer = new StringWriter();
+            this.site.printStackTrace(new PrintWriter(writer));
+
+            return description + ": " + writer;
+        }
+    }
+}
@@ -22,10 +22,10 @@ public final class OverlaySettingBits {
     public OverlaySettingBits(RenderDocAPIInternal internal, EnumSet<RenderDocOverlayBit> defaultSettings) {
         this.internal = internal;
 
-        this.internal.MaskOverlayBits.invoke(0, 0);
+        this.internal.MaskOverlayBits().invoke(0, 0);
 
         for (RenderDocOverlayBit option : defaultSettings) {
-            this.internal.MaskOverlayBits.invoke(1, option.getBit());
+            this.internal.MaskOverlayBits().invoke(1, option.getBit());
         }
     }
 
@@ -56,7 +56,7 @@ public final class OverlaySettingBits {
      */
     //TEST: PASSING
     public int getOverlayBits() {
-        return this.internal.GetOverlayBits.invoke();
+        return this.internal.GetOverlayBits().invoke();
     }
 
     /**
@@ -71,7 +71,7 @@ public final class OverlaySettingBits {
         int overlayBits = getOverlayBits();
 
         //Java doesn't do all that "unsigned bitness"...
-        this.internal.MaskOverlayBits.invoke(~(option.getBit() << 1) >>> 1, option.getBit() & ~overlayBits);
+        this.internal.MaskOverlayBits().invoke(~(option.getBit() << 1) >>> 1, option.getBit() & ~overlayBits);
     }
 
     /**
@@ -83,7 +83,7 @@ public final class OverlaySettingBits {
      */
     //TEST: PASSING
     public void turnOn(RenderDocOverlayBit option) {
-        this.internal.MaskOverlayBits.invoke(1, option.getBit());
+        this.internal.MaskOverlayBits().invoke(1, option.getBit());
     }
 
     /**
@@ -95,7 +95,7 @@ public final class OverlaySettingBits {
      */
     //TEST: PASSING
     public void turnOff(RenderDocOverlayBit option) {
-        this.internal.MaskOverlayBits.invoke(~option.getBit(), 0);
+        this.internal.MaskOverlayBits().invoke(~option.getBit(), 0);
     }
 
     /**
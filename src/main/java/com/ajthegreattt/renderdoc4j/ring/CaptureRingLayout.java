@@ -0,0 +1,145 @@
+package com.ajthegreattt.renderdoc4j.ring;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+
+/**
+ * The layout of a capture ring file, shared by the {@link CaptureRingWriter} and the {@link CaptureRingReader}.
+ *
+ * <pre>
+ * Header (128 bytes)
+ *   0   int   magic
+ *   4   int   layout version
+ *   8   int   capacity (number of slots, a power of two)
+ *   12  int   slot size in bytes
+ *   16  long  epoch, which changes every time a writer (re)creates the file
+ *   64  long  the sequence of the last published capture (on its own cache line)
+ *
+ * Slot (slot size bytes), for sequence n at (n - 1) &amp; (capacity - 1)
+ *   0   long  stamp: n once published, -n while being written
+ *   8   int   capture index
+ *   12  int   file path length in bytes, or -1 if the path did not fit into the slot
+ *   16  long  capture timestamp
+ *   24  ...   UTF-8 file path
+ * </pre>
+ *
+ * <p>All values are stored in the native byte order, since the ring is only ever shared between processes on the same machine.
+ * Slot sizes are a multiple of 8 bytes, so every {@code long} is aligned and cannot be torn.</p>
+ */
+final class CaptureRingLayout {
+
+    static final int MAGIC = 0x52443452;
+
+    static final int LAYOUT_VERSION = 2;
+
+    static final int MAGIC_OFFSET = 0;
+    static final int LAYOUT_VERSION_OFFSET = 4;
+    static final int CAPACITY_OFFSET = 8;
+    static final int SLOT_SIZE_OFFSET = 12;
+    static final int EPOCH_OFFSET = 16;
+    static final int SEQUENCE_OFFSET = 64;
+
+    static final int HEADER_SIZE = 128;
+
+    static final int STAMP_OFFSET = 0;
+    static final int INDEX_OFFSET = 8;
+    static final int PATH_LENGTH_OFFSET = 12;
+    static final int TIMESTAMP_OFFSET = 16;
+    static final int PATH_OFFSET = 24;
+
+    /**
+     * The path length of a slot whose file path did not fit, which is published without a path rather than with a truncated one that names a different file.
+     */
+    static final int PATH_TOO_LONG = -1;
+
+    /**
+     * The smallest slot size, which leaves room for a short file path.
+     */
+    static final int MIN_SLOT_SIZE = PATH_OFFSET + 64;
+
+    /**
+     * {@code VarHandle.storeFence()} on Java 9 and later, and {@code sun.misc.Unsafe.storeFence()} on Java 8.
+     *
+     * <p>Real fences are needed because the ring is read by other processes: a volatile field only orders accesses within this JVM, and says nothing about the plain accesses to the mapped file around it.</p>
+     */
+    private static final MethodHandle STORE_FENCE;
+
+    /**
+     * {@code VarHandle.loadFence()} on Java 9 and later, and {@code sun.misc.Unsafe.loadFence()} on Java 8.
+     */
+    private static final MethodHandle LOAD_FENCE;
+
+    static {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final MethodType type = MethodType.methodType(void.class);
+
+        MethodHandle storeFence;
+        MethodHandle loadFence;
+
+        try {
+            final Class<?> varHandle = Class.forName("java.lang.invoke.VarHandle");
+
+            storeFence = lookup.findStatic(varHandle, "storeFence", type);
+            loadFence = lookup.findStatic(varHandle, "loadFence", type);
+        } catch (ReflectiveOperationException e) {
+            try {
+                final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+
+                theUnsafe.setAccessible(true);
+
+                final Object unsafe = theUnsafe.get(null);
+
+                storeFence = lookup.findVirtual(unsafeClass, "storeFence", type).bindTo(unsafe);
+                loadFence = lookup.findVirtual(unsafeClass, "loadFence", type).bindTo(unsafe);
+            } catch (ReflectiveOperationException | RuntimeException e2) {
+                e2.addSuppressed(e);
+                throw new ExceptionInInitializerError(e2);
+            }
+        }
+
+        STORE_FENCE = storeFence;
+        LOAD_FENCE = loadFence;
+    }
+
+    private CaptureRingLayout() {
+        throw new AssertionError("You may not instantiate this class.");
+    }
+
+    static int slotOffset(long sequence, int capacity, int slotSize) {
+        return HEADER_SIZE + (int) ((sequence - 1) & (capacity - 1)) * slotSize;
+    }
+
+    static long fileSize(int capacity, int slotSize) {
+        return HEADER_SIZE + (long) capacity * slotSize;
+    }
+
+    /**
+     * Keeps the stores before this fence from being reordered with the stores after it, including the plain stores to the mapped file.
+     */
+    static void storeFence() {
+        try {
+            STORE_FENCE.invokeExact();
+        } catch (Throwable throwable) {
+            throw new AssertionError(throwable);
+        }
+    }
+
+    /**
+     * Keeps the loads before this fence from being reordered with the loads after it, including the plain loads from the mapped file.
+     */
+    static void loadFence() {
+        try {
+            LOAD_FENCE.invokeExact();
+        } catch (Throwable throwable) {
+            throw new AssertionError(throwable);
+        }
+    }
+
+    static boolean isValidHeader(ByteBuffer buffer) {
+        return buffer.getInt(MAGIC_OFFSET) == MAGIC && buffer.getInt(LAYOUT_VERSION_OFFSET) == LAYOUT_VERSION;
+    }
+}
@@ -0,0 +1,212 @@
+package com.ajthegreattt.renderdoc4j.ring;
+
+import com.ajthegreattt.renderdoc4j.backbone.FrameCapture;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+import static com.ajthegreattt.renderdoc4j.ring.CaptureRingLayout.*;
+
+/**
+ * The consumer side of a capture ring, meant to be used by another process on the same machine (such as a sidecar that uploads or indexes captures).
+ *
+ * <p>This class only depends on the JDK and {@link FrameCapture}; it never loads JNA or the RenderDoc shared library.</p>
+ *
+ * <pre>{@code
+ * try (CaptureRingReader reader = CaptureRingReader.open(ringFile)) {
+ *     while (running) {
+ *         FrameCapture capture = reader.poll();
+ *
+ *         if (capture != null) {
+ *             upload(capture.fileName());
+ *         } else {
+ *             Thread.sleep(100);
+ *         }
+ *     }
+ * }
+ * }</pre>
+ *
+ * <p>Reading never takes a lock or makes a system call. If this reader falls more than {@code capacity} captures behind the writer, the overwritten captures are skipped
+ * and counted by {@link #lost()}. Captures whose file path did not fit into a slot are skipped as well, and counted by {@link #skipped()}. If the writer recreates the ring (e.g. the game was restarted), this reader starts over from the beginning of the new ring.</p>
+ *
+ * <p>A {@link CaptureRingReader} is not thread-safe, but any number of readers (in any number of processes) may read the same ring.</p>
+ *
+ * @see CaptureRingWriter
+ */
+public final class CaptureRingReader implements AutoCloseable {
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer buffer;
+
+    private long epoch;
+
+    private int capacity;
+
+    private int slotSize;
+
+    private long sequence;
+
+    private long lost;
+
+    private long skipped;
+
+    private byte[] pathBuffer = new byte[256];
+
+    private CaptureRingReader(FileChannel channel, MappedByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Opens a ring buffer file created by a {@link CaptureRingWriter}. The reader starts at the oldest capture still in the ring.
+     *
+     * @param file The ring buffer file
+     * @return The new {@link CaptureRingReader}
+     * @throws IOException If the file could not be opened or mapped, or is not a capture ring
+     */
+    public static CaptureRingReader open(@NotNull Path file) throws IOException {
+        Objects.requireNonNull(file);
+
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+
+        try {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            buffer.order(ByteOrder.nativeOrder());
+
+            if (buffer.capacity() < HEADER_SIZE || !isValidHeader(buffer)) {
+                throw new IOException("The file [" + file + "] is not a capture ring");
+            }
+
+            final CaptureRingReader reader = new CaptureRingReader(channel, buffer);
+
+            reader.reset();
+
+            return reader;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The next {@link FrameCapture} in the ring, or {@code null} if there is no new capture yet
+     */
+    @Nullable
+    public FrameCapture poll() {
+        final MappedByteBuffer buffer = this.buffer;
+
+        if (!isValidHeader(buffer)) {
+            // The writer is (re)creating the ring
+            return null;
+        }
+
+        loadFence();
+
+        if (buffer.getLong(EPOCH_OFFSET) != this.epoch) {
+            reset();
+        }
+
+        while (true) {
+            final long published = buffer.getLong(SEQUENCE_OFFSET);
+            loadFence();
+
+            final long next = this.sequence + 1;
+
+            if (next > published) {
+                return null;
+            }
+
+            if (published - next >= this.capacity) {
+                final long oldest = published - this.capacity + 1;
+                this.lost += oldest - next;
+                this.sequence = oldest - 1;
+                continue;
+            }
+
+            final int slot = slotOffset(next, this.capacity, this.slotSize);
+
+            if (buffer.getLong(slot + STAMP_OFFSET) != next) {
+                // Overwritten since the sequence was read
+                this.lost++;
+                this.sequence = next;
+                continue;
+            }
+
+            loadFence();
+
+            final int index = buffer.getInt(slot + INDEX_OFFSET);
+            final int pathLength = buffer.getInt(slot + PATH_LENGTH_OFFSET);
+            final int length = Math.max(0, Math.min(pathLength, this.slotSize - PATH_OFFSET));
+            final long timestamp = buffer.getLong(slot + TIMESTAMP_OFFSET);
+
+            if (this.pathBuffer.length < length) {
+                this.pathBuffer = new byte[length];
+            }
+
+            for (int i = 0; i < length; ++i) {
+                this.pathBuffer[i] = buffer.get(slot + PATH_OFFSET + i);
+            }
+
+            loadFence();
+
+            this.sequence = next;
+
+            if (buffer.getLong(slot + STAMP_OFFSET) != next) {
+                // The writer lapped this reader while the slot was being copied
+                this.lost++;
+                continue;
+            }
+
+            if (pathLength == PATH_TOO_LONG) {
+                this.skipped++;
+                continue;
+            }
+
+            return new FrameCapture(index, new String(this.pathBuffer, 0, length, StandardCharsets.UTF_8), timestamp);
+        }
+    }
+
+    /**
+     * @return The number of captures that were overwritten before this reader could read them
+     */
+    public long lost() {
+        return this.lost;
+    }
+
+    /**
+     * @return The number of captures that were skipped because their file path did not fit into a slot of the ring
+     * @see CaptureRingWriter#create(Path, int, int)
+     */
+    public long skipped() {
+        return this.skipped;
+    }
+
+    /**
+     * Closes the underlying file. The mapping itself is released once this reader is garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    private void reset() {
+        this.epoch = this.buffer.getLong(EPOCH_OFFSET);
+        this.capacity = this.buffer.getInt(CAPACITY_OFFSET);
+        this.slotSize = this.buffer.getInt(SLOT_SIZE_OFFSET);
+        this.sequence = 0;
+
+        if (fileSize(this.capacity, this.slotSize) > this.buffer.capacity()) {
+            throw new IllegalStateException("The capture ring was recreated with a larger size, and must be opened again");
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.ajthegreattt.renderdoc4j.ring;
+
+import com.ajthegreattt.renderdoc4j.backbone.FrameCapture;
+import com.ajthegreattt.renderdoc4j.util.CaptureListener;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+import static com.ajthegreattt.renderdoc4j.ring.CaptureRingLayout.*;
+
+/**
+ * The producer side of a capture ring: a {@link CaptureListener} that publishes every {@link FrameCapture} into a memory-mapped, single-producer ring buffer file.
+ *
+ * <p>Any number of other processes on the same machine can read the ring with a {@link CaptureRingReader}, without locks or system calls.
+ * The writer never waits for readers. If a reader falls more than {@code capacity} captures behind, it skips the captures that were overwritten.</p>
+ *
+ * <p>Publishing a capture is a handful of plain stores into the mapped file, so it can safely run on the render thread from {@link com.ajthegreattt.renderdoc4j.backbone.RenderDocAPI#updateCaptureListeners() updateCaptureListeners()}.
+ * As the ring only supports a single producer, {@link #process(FrameCapture)} must only be called from one thread at a time.</p>
+ *
+ * @see com.ajthegreattt.renderdoc4j.backbone.Builder#withCaptureRing(Path)
+ * @see CaptureRingReader
+ */
+public final class CaptureRingWriter implements CaptureListener, AutoCloseable {
+
+    /**
+     * The default number of slots in the ring.
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * The default size of each slot, which fits any file path up to {@code PATH_MAX} on Linux.
+     */
+    public static final int DEFAULT_SLOT_SIZE = PATH_OFFSET + 4096;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer buffer;
+
+    private final int capacity;
+
+    private final int slotSize;
+
+    private long sequence;
+
+    private CaptureRingWriter(FileChannel channel, MappedByteBuffer buffer, int capacity, int slotSize) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.slotSize = slotSize;
+    }
+
+    /**
+     * Calls {@link #create(Path, int, int)} with the {@link #DEFAULT_CAPACITY} and {@link #DEFAULT_SLOT_SIZE}.
+     */
+    public static CaptureRingWriter create(@NotNull Path file) throws IOException {
+        return create(file, DEFAULT_CAPACITY, DEFAULT_SLOT_SIZE);
+    }
+
+    /**
+     * Creates (or recreates) the ring buffer file. Any reader that is already mapping the file will notice the new epoch and start over.
+     *
+     * <p>An existing file is never shrunk, as that would crash the readers that still map it. If it is larger than the new ring, the rest of the file is left unused.</p>
+     *
+     * @param file     The ring buffer file
+     * @param capacity The number of slots in the ring, which is rounded up to the next power of two
+     * @param slotSize The size of each slot in bytes, which is rounded up to a multiple of 8. Captures whose UTF-8 file path does not fit in a slot are published without it, and skipped by the readers.
+     * @return The new {@link CaptureRingWriter}
+     * @throws IOException If the file could not be created or mapped
+     */
+    public static CaptureRingWriter create(@NotNull Path file, int capacity, int slotSize) throws IOException {
+        Objects.requireNonNull(file);
+
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity of the ring must be at least 1");
+        }
+
+        if (slotSize < MIN_SLOT_SIZE || slotSize > Integer.MAX_VALUE - 7) {
+            throw new IllegalArgumentException("The slot size must be at least " + MIN_SLOT_SIZE + " bytes");
+        }
+
+        final int slots = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        final int alignedSlotSize = (slotSize + 7) & ~7;
+
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            // Never shrink the file: readers that still map the old ring would fault on every read past the new end
+            final long size = Math.max(fileSize(slots, alignedSlotSize), channel.size());
+
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+            buffer.order(ByteOrder.nativeOrder());
+
+            // Invalidate the header first, so that readers do not trust the slots while they are being reset
+            buffer.putInt(MAGIC_OFFSET, 0);
+            storeFence();
+
+            for (int i = 0; i < slots; ++i) {
+                buffer.putLong(HEADER_SIZE + i * alignedSlotSize + STAMP_OFFSET, 0);
+            }
+
+            buffer.putInt(LAYOUT_VERSION_OFFSET, LAYOUT_VERSION);
+            buffer.putInt(CAPACITY_OFFSET, slots);
+            buffer.putInt(SLOT_SIZE_OFFSET, alignedSlotSize);
+            buffer.putLong(EPOCH_OFFSET, System.nanoTime() ^ System.currentTimeMillis());
+            buffer.putLong(SEQUENCE_OFFSET, 0);
+            storeFence();
+
+            buffer.putInt(MAGIC_OFFSET, MAGIC);
+
+            return new CaptureRingWriter(channel, buffer, slots, alignedSlotSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Publishes the {@link FrameCapture} into the next slot of the ring.
+     */
+    @Override
+    public void process(FrameCapture frameCapture) {
+        final long next = this.sequence + 1;
+
+        final int slot = slotOffset(next, this.capacity, this.slotSize);
+
+        final MappedByteBuffer buffer = this.buffer;
+
+        buffer.putLong(slot + STAMP_OFFSET, -next);
+        storeFence();
+
+        final byte[] path = frameCapture.fileName().getBytes(StandardCharsets.UTF_8);
+
+        // A truncated path could name another file (or end inside a UTF-8 sequence), so one that does not fit is left out entirely
+        final boolean fits = path.length <= this.slotSize - PATH_OFFSET;
+
+        final int length = fits ? path.length : 0;
+
+        buffer.putInt(slot + INDEX_OFFSET, frameCapture.index());
+        buffer.putInt(slot + PATH_LENGTH_OFFSET, fits ? length : PATH_TOO_LONG);
+        buffer.putLong(slot + TIMESTAMP_OFFSET, frameCapture.timestamp());
+
+        for (int i = 0; i < length; ++i) {
+            buffer.put(slot + PATH_OFFSET + i, path[i]);
+        }
+
+        storeFence();
+        buffer.putLong(slot + STAMP_OFFSET, next);
+
+        storeFence();
+        buffer.putLong(SEQUENCE_OFFSET, next);
+
+        this.sequence = next;
+    }
+
+    /**
+     * @return The number of captures published by this writer
+     */
+    public long published() {
+        return this.sequence;
+    }
+
+    /**
+     * Closes the underlying file. The mapping itself is released once this writer is garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
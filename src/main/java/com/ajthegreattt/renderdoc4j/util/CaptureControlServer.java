@@ -0,0 +1,406 @@
+package com.ajthegreattt.renderdoc4j.util;
+
+import com.ajthegreattt.renderdoc4j.backbone.CaptureScope;
+import com.ajthegreattt.renderdoc4j.backbone.FrameCapture;
+import com.ajthegreattt.renderdoc4j.backbone.FrameState;
+import com.ajthegreattt.renderdoc4j.backbone.RenderDocAPI;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An opt-in HTTP endpoint on the loopback interface that lets other processes (e.g. test rigs) request captures:
+ *
+ * <pre>{@code
+ * curl -X POST "http://127.0.0.1:8642/capture"
+ * curl -X POST "http://127.0.0.1:8642/capture?frames=3"
+ * curl -X POST "http://127.0.0.1:8642/capture?title=Boss%20Fight&timeout=60000"
+ * }</pre>
+ *
+ * <p>Every request waits until its captures have been written, and responds with their paths, one per line. The query parameters are:</p>
+ * <ul>
+ *     <li>{@code frames}: The number of frames to capture (default {@code 1}), see {@link RenderDocAPI#triggerMultiFrameCapture(int)}</li>
+ *     <li>{@code title}: A title for the capture, see {@link RenderDocAPI#setCaptureTitle(String)}. Titled captures can only be of a single frame.</li>
+ *     <li>{@code timeout}: How many milliseconds to wait for the captures (default {@value #DEFAULT_TIMEOUT_MILLIS}) before responding with {@code 504}</li>
+ * </ul>
+ *
+ * <p>The server thread never calls into RenderDoc. Requests are handed to the render thread through the {@link RenderDocAPI#renderThreadQueue()}, which is drained at every {@link RenderDocAPI#frameBoundary()};
+ * a request that does not fit in it is rejected with {@code 503}.
+ * All requests drained in the same frame are coalesced into one capture: untitled requests share a capture of the most frames any of them asked for, and titled requests share one capture whose title joins theirs.
+ * Titled requests are deferred while a triggered capture is still being made.</p>
+ *
+ * @see RenderDocAPI#frameBoundary()
+ */
+public final class CaptureControlServer implements FrameBoundaryListener, AutoCloseable {
+
+    /**
+     * The path of the capture endpoint.
+     */
+    public static final String PATH = "/capture";
+
+    /**
+     * The default number of milliseconds a request waits for its captures.
+     */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 30_000;
+
+    private static final int MAX_FRAMES = 1000;
+
+    private final RenderDocAPI api;
+
+    private final HttpServer server;
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    /**
+     * The number of requests that have not been answered yet. Once the server is closed and this reaches {@code 0}, the {@link #executor} is shut down.
+     */
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private volatile boolean closed;
+
+    /**
+     * Requests that have been drained from the {@link RenderDocAPI#renderThreadQueue()} since the last frame boundary. Only used on the render thread.
+     */
+    private final List<Request> arrived = new ArrayList<>();
+
+    /**
+     * Titled requests that could not share the last capture. Only used on the render thread.
+     */
+    private final ArrayDeque<Request> deferred = new ArrayDeque<>();
+
+    private @Nullable CaptureScope scope;
+
+    private @Nullable List<Request> scopeRequests;
+
+    /**
+     * The last triggered capture, which a titled capture must not overlap with.
+     */
+    private @Nullable CompletableFuture<List<FrameCapture>> triggered;
+
+    private CaptureControlServer(RenderDocAPI api, HttpServer server, ScheduledThreadPoolExecutor executor) {
+        this.api = api;
+        this.server = server;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts the server on the loopback interface, and adds it as a {@link FrameBoundaryListener} of the {@code api}.
+     *
+     * @param api  The {@link RenderDocAPI} to make captures with
+     * @param port The port to listen on, or {@code 0} for any free port (see {@link #port()})
+     * @return The started {@link CaptureControlServer}
+     * @throws IOException If the server could not be bound to the port
+     */
+    public static CaptureControlServer start(@NotNull RenderDocAPI api, int port) throws IOException {
+        Objects.requireNonNull(api);
+
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "RenderDoc4J Capture Control");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        executor.setRemoveOnCancelPolicy(true);
+
+        final CaptureControlServer controlServer = new CaptureControlServer(api, server, executor);
+
+        server.createContext(PATH, controlServer::handle);
+        server.setExecutor(executor);
+        server.start();
+
+        api.addFrameBoundaryListener(controlServer);
+
+        return controlServer;
+    }
+
+    /**
+     * @return The port the server is listening on
+     */
+    public int port() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server. Requests that are still waiting for the render thread are answered with {@code 503} at the next {@link RenderDocAPI#frameBoundary()} (or when they time out, if there is none),
+     * and the server's thread stops once every request has been answered.
+     *
+     * <p>A titled capture that is in progress is still ended, and the server removes itself as a {@link FrameBoundaryListener}, at the next {@link RenderDocAPI#frameBoundary()}.</p>
+     */
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+
+        this.server.stop(0);
+
+        if (this.outstanding.get() == 0) {
+            this.executor.shutdown();
+        }
+    }
+
+    /**
+     * Coalesces the requests that arrived since the last frame boundary into one capture. Must only be called on the render thread, which {@link RenderDocAPI#frameBoundary()} does.
+     */
+    @Override
+    public void onFrameBoundary(FrameState state) {
+        if (this.scope != null) {
+            this.scope.close();
+            completeAll(this.scopeRequests, this.scope.capture().thenApply(Collections::singletonList));
+
+            this.scope = null;
+            this.scopeRequests = null;
+        }
+
+        if (this.closed) {
+            this.api.removeFrameBoundaryListener(this);
+            this.deferred.addAll(this.arrived);
+            completeAll(new ArrayList<>(this.deferred), failed(new CancellationException("The capture control server was closed")));
+            this.deferred.clear();
+            this.arrived.clear();
+            return;
+        }
+
+        if (this.deferred.isEmpty() && this.arrived.isEmpty()) {
+            return;
+        }
+
+        final List<Request> untitled = new ArrayList<>();
+        final List<Request> titled = new ArrayList<>();
+
+        int frames = 0;
+
+        Request request;
+
+        while ((request = this.deferred.poll()) != null) {
+            // A deferred request may have timed out while it waited for the triggered capture
+            if (!request.future.isDone()) {
+                titled.add(request);
+            }
+        }
+
+        for (Request arrivedRequest : this.arrived) {
+            if (arrivedRequest.future.isDone()) {
+                continue;
+            }
+
+            if (arrivedRequest.title != null) {
+                titled.add(arrivedRequest);
+            } else {
+                untitled.add(arrivedRequest);
+                frames = Math.max(frames, arrivedRequest.frames);
+            }
+        }
+
+        this.arrived.clear();
+
+        if (!untitled.isEmpty()) {
+            this.triggered = frames == 1
+                    ? this.api.triggerCaptureAsync().thenApply(Collections::singletonList)
+                    : this.api.triggerMultiFrameCaptureAsync(frames);
+
+            completeAll(untitled, this.triggered);
+
+            this.deferred.addAll(titled);
+        } else if (this.triggered != null && !this.triggered.isDone()) {
+            this.deferred.addAll(titled);
+        } else if (!titled.isEmpty()) {
+            final Set<String> titles = new LinkedHashSet<>();
+
+            for (Request titledRequest : titled) {
+                titles.add(titledRequest.title);
+            }
+
+            this.scope = this.api.beginCapture(String.join(" / ", titles));
+            this.scopeRequests = titled;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Allow", "POST");
+            respond(exchange, 405, "Only POST is supported");
+            return;
+        }
+
+        int frames = 1;
+        long timeout = DEFAULT_TIMEOUT_MILLIS;
+        String title = null;
+
+        try {
+            final String query = exchange.getRequestURI().getRawQuery();
+
+            if (query != null) {
+                for (String parameter : query.split("&")) {
+                    final int equals = parameter.indexOf('=');
+
+                    final String key = decode(equals < 0 ? parameter : parameter.substring(0, equals));
+                    final String value = equals < 0 ? "" : decode(parameter.substring(equals + 1));
+
+                    switch (key) {
+                        case "frames":
+                            frames = Integer.parseInt(value);
+                            break;
+                        case "timeout":
+                            timeout = Long.parseLong(value);
+                            break;
+                        case "title":
+                            title = value;
+                            break;
+                        default:
+                            respond(exchange, 400, "Unknown parameter [" + key + "]");
+                            return;
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, "Malformed parameter: " + e.getMessage());
+            return;
+        }
+
+        if (frames < 1 || frames > MAX_FRAMES || timeout < 1 || (title != null && frames != 1)) {
+            respond(exchange, 400, "frames must be between 1 and " + MAX_FRAMES + " (and 1 for titled captures), and timeout must be positive");
+            return;
+        }
+
+        if (this.closed) {
+            respond(exchange, 503, "The capture control server is closed");
+            return;
+        }
+
+        final Request request = new Request(frames, title);
+
+        if (!this.api.renderThreadQueue().run(() -> arrive(request))) {
+            respond(exchange, 503, "Too many captures are pending");
+            return;
+        }
+
+        this.outstanding.incrementAndGet();
+
+        final ScheduledFuture<?> timer = this.executor.schedule(
+                () -> request.future.completeExceptionally(new TimeoutException()), timeout, TimeUnit.MILLISECONDS);
+
+        request.future.whenCompleteAsync((captures, throwable) -> {
+            timer.cancel(false);
+
+            try {
+                if (throwable == null) {
+                    final StringBuilder body = new StringBuilder();
+
+                    for (FrameCapture capture : captures) {
+                        body.append(capture.fileName()).append('\n');
+                    }
+
+                    respond(exchange, 200, body.toString());
+                } else {
+                    final Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+
+                    if (cause instanceof TimeoutException) {
+                        respond(exchange, 504, "The capture did not complete in time");
+                    } else if (cause instanceof CancellationException) {
+                        respond(exchange, 503, "The capture was cancelled");
+                    } else {
+                        respond(exchange, 500, "The capture failed: " + cause.getMessage());
+                    }
+                }
+            } catch (IOException e) {
+                // The client has gone away
+                exchange.close();
+            } finally {
+                if (this.outstanding.decrementAndGet() == 0 && this.closed) {
+                    this.executor.shutdown();
+                }
+            }
+        }, this.executor);
+    }
+
+    /**
+     * Runs on the render thread, when the request is drained from the {@link RenderDocAPI#renderThreadQueue()}.
+     */
+    private void arrive(Request request) {
+        if (this.closed) {
+            request.future.completeExceptionally(new CancellationException("The capture control server was closed"));
+        } else {
+            this.arrived.add(request);
+        }
+    }
+
+    private static void completeAll(List<Request> requests, CompletableFuture<List<FrameCapture>> captures) {
+        captures.whenComplete((list, throwable) -> {
+            for (Request request : requests) {
+                if (throwable != null) {
+                    request.future.completeExceptionally(throwable);
+                } else {
+                    request.future.complete(list);
+                }
+            }
+        });
+    }
+
+    private static CompletableFuture<List<FrameCapture>> failed(Throwable throwable) {
+        final CompletableFuture<List<FrameCapture>> future = new CompletableFuture<>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+
+    private static String decode(String string) {
+        try {
+            return URLDecoder.decode(string, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static final class Request {
+
+        private final int frames;
+
+        private final @Nullable String title;
+
+        private final CompletableFuture<List<FrameCapture>> future = new CompletableFuture<>();
+
+        private Request(int frames, @Nullable String title) {
+            this.frames = frames;
+            this.title = title;
+        }
+    }
+}
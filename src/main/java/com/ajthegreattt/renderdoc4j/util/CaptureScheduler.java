@@ -0,0 +1,419 @@
+package com.ajthegreattt.renderdoc4j.util;
+
+import com.ajthegreattt.renderdoc4j.backbone.CaptureScope;
+import com.ajthegreattt.renderdoc4j.backbone.FrameCapture;
+import com.ajthegreattt.renderdoc4j.backbone.FrameState;
+import com.ajthegreattt.renderdoc4j.backbone.RenderDocAPI;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Captures exact frames, by counting frames with a {@link FrameBoundaryListener} and starting and ending captures at the frame boundaries around them.
+ *
+ * <pre>{@code
+ * CaptureScheduler scheduler = CaptureScheduler.install(api, 0);
+ *
+ * scheduler.scheduleCapture(18_000);                // frame 18 000 as one capture
+ * scheduler.scheduleCapture(500, 503, "Explosion"); // frames 500 to 503 as one capture
+ * scheduler.scheduleMultiFrameCapture(500, 4);      // frames 500 to 503 as four captures
+ * }</pre>
+ *
+ * <p>Frame {@code n} is the frame that is rendered between the {@code n}-th and the next call to {@link RenderDocAPI#frameBoundary()}, counting from the frame number given to {@link #install(RenderDocAPI, long)}.
+ * Single captures (of one frame or a range of frames) are made with {@link RenderDocAPI#startFrameCapture()} and {@link RenderDocAPI#endFrameCapture()} at the boundary before their first frame.
+ * Multi-frame captures are made with {@link RenderDocAPI#triggerMultiFrameCapture(int)} one boundary earlier, as RenderDoc only starts a triggered capture at the next present,
+ * so their first frame can not be the {@link #nextFrame() next frame}, and the frame before it must not be captured by anything else.
+ * As long as {@link RenderDocAPI#frameBoundary()} is called right after presenting, the same frame numbers therefore produce captures of the same frames in every run.</p>
+ *
+ * <p>Scheduled captures are kept in an array sorted by frame, and the next due frame is cached, so the check made every frame is a single comparison under an uncontended lock.
+ * Scheduling takes the same lock, so a capture scheduled for the next frame is never missed, and an action that somehow missed its frame fails its future rather than capturing a different frame.
+ * Captures may be scheduled from any thread, but must not overlap each other, as RenderDoc makes one capture at a time.</p>
+ */
+public final class CaptureScheduler implements FrameBoundaryListener, AutoCloseable {
+
+    /**
+     * The order of the actions that are due at the same frame boundary: a capture must end before the next one starts.
+     */
+    private static final int END = 0;
+    private static final int START = 1;
+    private static final int TRIGGER = 2;
+
+    private final RenderDocAPI api;
+
+    /**
+     * The frame that starts at the next frame boundary. Guarded by {@code this}.
+     */
+    private long frame;
+
+    /**
+     * The frame of the first scheduled action, or {@link Long#MAX_VALUE} if there is none. Guarded by {@code this}.
+     */
+    private long nextDue = Long.MAX_VALUE;
+
+    private boolean closed;
+
+    /**
+     * The scheduled actions, sorted by {@code (frame << 2) | action}, from {@link #head} (inclusive) to {@link #tail} (exclusive). Guarded by {@code this}.
+     */
+    private long[] keys = new long[16];
+
+    /**
+     * The first frame after the capture that an action starts, and {@code 0} for {@link #END}.
+     */
+    private long[] ends = new long[16];
+
+    private int[] counts = new int[16];
+
+    private Object[] titles = new Object[16];
+
+    private Object[] futures = new Object[16];
+
+    private int head;
+
+    private int tail;
+
+    /**
+     * The first frame after the captures that have already been started.
+     */
+    private long activeUntil = Long.MIN_VALUE;
+
+    private @Nullable CaptureScope scope;
+
+    private @Nullable CompletableFuture<FrameCapture> scopeFuture;
+
+    private CaptureScheduler(RenderDocAPI api, long firstFrame) {
+        this.api = api;
+        this.frame = firstFrame;
+    }
+
+    /**
+     * Adds a new {@link CaptureScheduler} as a {@link FrameBoundaryListener} of the {@code api}.
+     *
+     * @param api        The {@link RenderDocAPI} to make captures with
+     * @param firstFrame The number of the frame that starts at the next {@link RenderDocAPI#frameBoundary()}, e.g. the frame counter of a deterministic replay
+     * @return The new {@link CaptureScheduler}
+     */
+    public static CaptureScheduler install(@NotNull RenderDocAPI api, long firstFrame) {
+        final CaptureScheduler scheduler = new CaptureScheduler(Objects.requireNonNull(api), firstFrame);
+        api.addFrameBoundaryListener(scheduler);
+        return scheduler;
+    }
+
+    /**
+     * @return The number of the frame that starts at the next {@link RenderDocAPI#frameBoundary()}, which is the earliest frame that can still be scheduled
+     */
+    public synchronized long nextFrame() {
+        return this.frame;
+    }
+
+    /**
+     * Calls {@link #scheduleCapture(long, long, String)} for the single {@code frame}, without a title.
+     */
+    public CompletableFuture<FrameCapture> scheduleCapture(long frame) {
+        return this.scheduleCapture(frame, frame, null);
+    }
+
+    /**
+     * Schedules one capture of the frames from {@code firstFrame} to {@code lastFrame} (both inclusive).
+     *
+     * @param firstFrame The first frame to capture
+     * @param lastFrame  The last frame to capture
+     * @param title      The title of the capture, if any
+     * @return A future that completes with the {@link FrameCapture} once it has been written, or is cancelled if this scheduler is {@link #close() closed} before the capture starts
+     * @throws IllegalArgumentException If {@code firstFrame} has already started, {@code lastFrame} is before {@code firstFrame}, or the capture overlaps another scheduled capture
+     */
+    public CompletableFuture<FrameCapture> scheduleCapture(long firstFrame, long lastFrame, @Nullable String title) {
+        if (lastFrame < firstFrame || lastFrame == Long.MAX_VALUE) {
+            throw new IllegalArgumentException("The last frame [" + lastFrame + "] must not be before the first frame [" + firstFrame + "]");
+        }
+
+        final CompletableFuture<FrameCapture> future = new CompletableFuture<>();
+
+        synchronized (this) {
+            this.checkSchedulable(firstFrame, lastFrame + 1);
+
+            this.insert(key(firstFrame, START), lastFrame + 1, 0, title, future);
+            this.insert(key(lastFrame + 1, END), 0, 0, null, future);
+        }
+
+        return future;
+    }
+
+    /**
+     * Schedules a {@link RenderDocAPI#triggerMultiFrameCapture(int) multi-frame capture}, which captures each of the {@code count} frames from {@code firstFrame} into its own capture.
+     *
+     * @param firstFrame The first frame to capture
+     * @param count      The number of frames to capture
+     * @return A future that completes with the {@code count} {@link FrameCapture}s once all of them have been written, or is cancelled if this scheduler is {@link #close() closed} before they are triggered
+     * @throws IllegalArgumentException If {@code firstFrame} is not after the {@link #nextFrame() next frame}, {@code count} is less than {@code 1}, or the captures (or the frame they are triggered in) overlap another scheduled capture
+     */
+    public CompletableFuture<List<FrameCapture>> scheduleMultiFrameCapture(long firstFrame, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("The number of frames to capture must be at least 1");
+        }
+
+        final CompletableFuture<List<FrameCapture>> future = new CompletableFuture<>();
+
+        synchronized (this) {
+            if (firstFrame <= this.frame && !this.closed) {
+                throw new IllegalArgumentException("The frame [" + firstFrame + "] must be after the next frame [" + this.frame + "], as a triggered capture only starts at the present after it is triggered");
+            }
+
+            // The trigger is due at the boundary before the frame preceding the first captured one, which is kept free of other captures
+            this.checkSchedulable(firstFrame - 1, firstFrame + count);
+
+            this.insert(key(firstFrame - 1, TRIGGER), firstFrame + count, count, null, future);
+        }
+
+        return future;
+    }
+
+    /**
+     * @return The number of captures that are scheduled but have not been started yet
+     */
+    public synchronized int pending() {
+        int pending = 0;
+
+        for (int i = this.head; i < this.tail; i++) {
+            if (action(this.keys[i]) != END) {
+                pending++;
+            }
+        }
+
+        return pending;
+    }
+
+    /**
+     * Cancels every capture that has not been started yet. A capture that is in progress is still ended at its last frame.
+     *
+     * <p>The scheduler removes itself as a {@link FrameBoundaryListener} once nothing is in progress anymore.</p>
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+
+            this.closed = true;
+
+            int kept = this.head;
+
+            for (int i = this.head; i < this.tail; i++) {
+                if (action(this.keys[i]) == END && this.futures[i] == this.scopeFuture) {
+                    this.move(i, kept++);
+                } else if (action(this.keys[i]) != END) {
+                    ((CompletableFuture<?>) this.futures[i]).cancel(false);
+                }
+            }
+
+            this.clear(kept, this.tail);
+            this.tail = kept;
+
+            // Makes the next frame boundary take the slow path, which removes this listener once nothing is left
+            this.nextDue = Long.MIN_VALUE;
+        }
+    }
+
+    @Override
+    public synchronized void onFrameBoundary(FrameState state) {
+        // Counting and scheduling share this lock, so an action is either seen by this boundary or scheduled for a later frame
+        final long current = this.frame;
+
+        this.frame = current + 1;
+
+        if (current < this.nextDue) {
+            return;
+        }
+
+        while (this.head < this.tail && frame(this.keys[this.head]) <= current) {
+            if (frame(this.keys[this.head]) < current) {
+                this.fail(this.head, current);
+            } else {
+                this.execute(this.head);
+            }
+
+            this.head++;
+        }
+
+        if (this.head == this.tail) {
+            this.head = 0;
+            this.tail = 0;
+        }
+
+        this.nextDue = this.head < this.tail ? frame(this.keys[this.head]) : Long.MAX_VALUE;
+
+        if (this.closed && this.scope == null && this.head == this.tail) {
+            this.api.removeFrameBoundaryListener(this);
+        }
+    }
+
+    /**
+     * Completes an action that missed its frame exceptionally, rather than capturing a different frame than the one that was scheduled.
+     */
+    private void fail(int index, long current) {
+        final CompletableFuture<?> future = (CompletableFuture<?>) this.futures[index];
+        final IllegalStateException exception = new IllegalStateException("The frame [" + frame(this.keys[index]) + "] was missed; the current frame is [" + current + "]");
+
+        if (action(this.keys[index]) == END && this.scope != null && this.scopeFuture == future) {
+            final CaptureScope scope = this.scope;
+
+            this.scope = null;
+            this.scopeFuture = null;
+
+            scope.discard();
+            scope.close();
+        }
+
+        future.completeExceptionally(exception);
+
+        this.titles[index] = null;
+        this.futures[index] = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void execute(int index) {
+        switch (action(this.keys[index])) {
+            case START: {
+                this.activeUntil = Math.max(this.activeUntil, this.ends[index]);
+
+                this.scope = this.api.beginCapture((String) this.titles[index]);
+                this.scopeFuture = (CompletableFuture<FrameCapture>) this.futures[index];
+                break;
+            }
+            case END: {
+                if (this.scope != null && this.scopeFuture == this.futures[index]) {
+                    final CaptureScope scope = this.scope;
+                    final CompletableFuture<FrameCapture> future = this.scopeFuture;
+
+                    this.scope = null;
+                    this.scopeFuture = null;
+
+                    scope.close();
+                    scope.capture().whenComplete((capture, throwable) -> {
+                        if (throwable != null) {
+                            future.completeExceptionally(throwable);
+                        } else {
+                            future.complete(capture);
+                        }
+                    });
+                }
+                break;
+            }
+            case TRIGGER: {
+                this.activeUntil = Math.max(this.activeUntil, this.ends[index]);
+
+                final CompletableFuture<List<FrameCapture>> future = (CompletableFuture<List<FrameCapture>>) this.futures[index];
+
+                this.api.triggerMultiFrameCaptureAsync(this.counts[index]).whenComplete((captures, throwable) -> {
+                    if (throwable != null) {
+                        future.completeExceptionally(throwable);
+                    } else {
+                        future.complete(captures);
+                    }
+                });
+                break;
+            }
+            default:
+                throw new IllegalStateException();
+        }
+
+        this.titles[index] = null;
+        this.futures[index] = null;
+    }
+
+    private void checkSchedulable(long firstFrame, long end) {
+        if (this.closed) {
+            throw new CancellationException("The capture scheduler has been closed");
+        }
+
+        if (firstFrame < this.frame) {
+            throw new IllegalArgumentException("The frame [" + firstFrame + "] has already started; the next frame is [" + this.frame + "]");
+        }
+
+        if (firstFrame < this.activeUntil) {
+            throw new IllegalArgumentException("The frame [" + firstFrame + "] is part of a capture that is in progress");
+        }
+
+        for (int i = this.head; i < this.tail; i++) {
+            if (action(this.keys[i]) != END && firstFrame < this.ends[i] && frame(this.keys[i]) < end) {
+                throw new IllegalArgumentException("The frames [" + firstFrame + ", " + (end - 1) + "] overlap a capture scheduled from frame [" + frame(this.keys[i]) + "]");
+            }
+        }
+    }
+
+    /**
+     * Inserts an action at its sorted position. Actions with the same key keep the order they were inserted in.
+     */
+    private void insert(long key, long end, int count, @Nullable String title, CompletableFuture<?> future) {
+        if (this.tail == this.keys.length) {
+            if (this.head > this.keys.length / 2) {
+                // Reclaim the space of executed actions before growing
+                for (int i = this.head; i < this.tail; i++) {
+                    this.move(i, i - this.head);
+                }
+
+                this.clear(this.tail - this.head, this.tail);
+                this.tail -= this.head;
+                this.head = 0;
+            } else {
+                final int capacity = this.keys.length * 2;
+
+                this.keys = Arrays.copyOf(this.keys, capacity);
+                this.ends = Arrays.copyOf(this.ends, capacity);
+                this.counts = Arrays.copyOf(this.counts, capacity);
+                this.titles = Arrays.copyOf(this.titles, capacity);
+                this.futures = Arrays.copyOf(this.futures, capacity);
+            }
+        }
+
+        int index = this.tail;
+
+        while (index > this.head && this.keys[index - 1] > key) {
+            this.move(index - 1, index);
+            index--;
+        }
+
+        this.keys[index] = key;
+        this.ends[index] = end;
+        this.counts[index] = count;
+        this.titles[index] = title;
+        this.futures[index] = future;
+
+        this.tail++;
+
+        if (index == this.head && !this.closed) {
+            this.nextDue = frame(key);
+        }
+    }
+
+    private void move(int from, int to) {
+        this.keys[to] = this.keys[from];
+        this.ends[to] = this.ends[from];
+        this.counts[to] = this.counts[from];
+        this.titles[to] = this.titles[from];
+        this.futures[to] = this.futures[from];
+    }
+
+    private void clear(int from, int to) {
+        Arrays.fill(this.titles, from, to, null);
+        Arrays.fill(this.futures, from, to, null);
+    }
+
+    private static long key(long frame, int action) {
+        return (frame << 2) | action;
+    }
+
+    private static long frame(long key) {
+        return key >> 2;
+    }
+
+    private static int action(long key) {
+        return (int) (key & 3);
+    }
+}
@@ -0,0 +1,20 @@
+package com.ajthegreattt.renderdoc4j.util;
+
+import com.ajthegreattt.renderdoc4j.backbone.FrameState;
+import com.ajthegreattt.renderdoc4j.backbone.RenderDocAPI;
+
+/**
+ * A functional interface for running code on the render thread at every {@link RenderDocAPI#frameBoundary()}.
+ *
+ * @see RenderDocAPI#addFrameBoundaryListener(FrameBoundaryListener)
+ */
+@FunctionalInterface
+public interface FrameBoundaryListener {
+
+    /**
+     * Called at the end of {@link RenderDocAPI#frameBoundary()}, on the thread that called it.
+     *
+     * @param state The new {@link FrameState}
+     */
+    void onFrameBoundary(FrameState state);
+}
@@ -0,0 +1,184 @@
+package com.ajthegreattt.renderdoc4j.util;
+
+import com.ajthegreattt.renderdoc4j.backbone.FrameCapture;
+import com.ajthegreattt.renderdoc4j.backbone.RenderDocAPI;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An opt-in trigger that captures the frame(s) after a long garbage collection pause, so that GPU captures can be compared against JVM stalls.
+ *
+ * <p>Every {@link GarbageCollectorMXBean} is subscribed to. When a pause exceeds the threshold (and the cooldown has passed since the last capture this trigger made),
+ * a capture is {@link RenderDocAPI#triggerCaptureAsync() triggered}, and once it appears, the collector's name, action, cause and duration are written into it with {@link RenderDocAPI#setCaptureFileComments(String, String)}.</p>
+ *
+ * <p>Notifications arrive on a JMX thread, which never calls into RenderDoc: the capture is enqueued into the {@link RenderDocAPI#renderThreadQueue()},
+ * and triggered at the next {@link RenderDocAPI#frameBoundary()}. If the queue is full, the pause is not captured.</p>
+ *
+ * <p>Collections that are reported by concurrent collectors as whole cycles (e.g. {@code G1 Concurrent GC} or {@code ZGC Cycles}) are ignored, as they do not stop the application.</p>
+ *
+ * <p>The comments are written when the capture's future completes, which is from {@link RenderDocAPI#updateCaptureListeners()} or {@link RenderDocAPI#frameBoundary()}, so one of them <b>must</b> still be called periodically.</p>
+ *
+ * <pre>{@code
+ * GcPauseCaptureTrigger trigger = GcPauseCaptureTrigger.install(api, 50, 30_000);
+ * ...
+ * trigger.close();
+ * }</pre>
+ */
+public final class GcPauseCaptureTrigger implements AutoCloseable {
+
+    private final RenderDocAPI api;
+
+    private final long pauseThresholdMillis;
+
+    private final long cooldownNanos;
+
+    private final int frames;
+
+    private final AtomicLong lastTrigger = new AtomicLong(Long.MIN_VALUE);
+
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+
+    private final NotificationListener listener = this::handleNotification;
+
+    private GcPauseCaptureTrigger(RenderDocAPI api, long pauseThresholdMillis, long cooldownMillis, int frames) {
+        this.api = api;
+        this.pauseThresholdMillis = pauseThresholdMillis;
+        this.cooldownNanos = TimeUnit.MILLISECONDS.toNanos(cooldownMillis);
+        this.frames = frames;
+    }
+
+    /**
+     * Calls {@link #install(RenderDocAPI, long, long, int)} to capture a single frame after each long pause.
+     */
+    public static GcPauseCaptureTrigger install(@NotNull RenderDocAPI api, long pauseThresholdMillis, long cooldownMillis) {
+        return install(api, pauseThresholdMillis, cooldownMillis, 1);
+    }
+
+    /**
+     * Subscribes a new {@link GcPauseCaptureTrigger} to every {@link GarbageCollectorMXBean}.
+     *
+     * @param api                  The {@link RenderDocAPI} to trigger captures with
+     * @param pauseThresholdMillis The pause duration in milliseconds above which a capture is triggered
+     * @param cooldownMillis       The minimum time in milliseconds between two captures triggered by this trigger
+     * @param frames               The number of frames to capture after each long pause. More than {@code 1} uses {@link RenderDocAPI#triggerMultiFrameCaptureAsync(int)}.
+     * @return The installed {@link GcPauseCaptureTrigger}, which can be {@link #close() closed} to unsubscribe it
+     */
+    public static GcPauseCaptureTrigger install(@NotNull RenderDocAPI api, long pauseThresholdMillis, long cooldownMillis, int frames) {
+        Objects.requireNonNull(api);
+
+        if (pauseThresholdMillis < 0 || cooldownMillis < 0) {
+            throw new IllegalArgumentException("The pause threshold and cooldown can not be negative");
+        }
+
+        if (frames < 1) {
+            throw new IllegalArgumentException("There can not be less than 1 frame captured");
+        }
+
+        final GcPauseCaptureTrigger trigger = new GcPauseCaptureTrigger(api, pauseThresholdMillis, cooldownMillis, frames);
+
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (bean instanceof NotificationEmitter) {
+                final NotificationEmitter emitter = (NotificationEmitter) bean;
+                emitter.addNotificationListener(trigger.listener, null, null);
+                trigger.emitters.add(emitter);
+            }
+        }
+
+        return trigger;
+    }
+
+    private void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+
+        final GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+
+        final String gcName = info.getGcName();
+
+        if (gcName.contains("Concurrent") || gcName.contains("Cycles")) {
+            return;
+        }
+
+        final GcInfo gcInfo = info.getGcInfo();
+
+        final long duration = gcInfo.getDuration();
+
+        final long now = System.nanoTime();
+        final long last = this.lastTrigger.get();
+
+        if (duration <= this.pauseThresholdMillis || !tryStartCooldown(last, now)) {
+            return;
+        }
+
+        final String comments = "GC pause: " + gcName + " (" + info.getGcAction() + ", cause: " + info.getGcCause() + ") took " + duration + " ms, collection #" + gcInfo.getId();
+
+        if (!this.api.renderThreadQueue().run(() -> trigger(comments))) {
+            // The queue is full, so nothing was triggered, and the next long pause should not be held back by the cooldown
+            this.lastTrigger.compareAndSet(now, last);
+        }
+    }
+
+    /**
+     * Runs on the render thread, when the capture is drained from the {@link RenderDocAPI#renderThreadQueue()}.
+     */
+    private void trigger(String comments) {
+        if (this.frames == 1) {
+            this.api.triggerCaptureAsync().thenAccept(capture -> writeComments(capture, comments));
+        } else {
+            final CompletableFuture<List<FrameCapture>> captures = this.api.triggerMultiFrameCaptureAsync(this.frames);
+
+            captures.thenAccept(list -> list.forEach(capture -> writeComments(capture, comments)));
+        }
+    }
+
+    /**
+     * @param last The time of the last trigger, as read from {@link #lastTrigger}
+     * @param now  The current time, which becomes the time of the last trigger if the cooldown has passed
+     * @return {@code true} if the cooldown has passed, and this thread started the next one
+     */
+    private boolean tryStartCooldown(long last, long now) {
+        if (last != Long.MIN_VALUE && now - last < this.cooldownNanos) {
+            return false;
+        }
+
+        return this.lastTrigger.compareAndSet(last, now);
+    }
+
+    private void writeComments(FrameCapture capture, String comments) {
+        if (this.api.getCapabilities().supportsCaptureFileComments() && !capture.fileName().isEmpty()) {
+            this.api.setCaptureFileComments(capture.fileName(), comments);
+        }
+    }
+
+    /**
+     * Unsubscribes this trigger from every {@link GarbageCollectorMXBean}. Captures that were already triggered will still have their comments written.
+     */
+    @Override
+    public void close() {
+        for (NotificationEmitter emitter : this.emitters) {
+            try {
+                emitter.removeNotificationListener(this.listener);
+            } catch (ListenerNotFoundException ignored) {
+                // Already removed
+            }
+        }
+
+        this.emitters.clear();
+    }
+}
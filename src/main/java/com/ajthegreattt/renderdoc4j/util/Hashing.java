@@ -0,0 +1,37 @@
+package com.ajthegreattt.renderdoc4j.util;
+
+/**
+ * The 64-bit hash functions shared by annotation values and the annotation deduplication, so that both always agree on how a string or a value is hashed.
+ */
+public final class Hashing {
+
+    private Hashing() {
+        throw new AssertionError("You may not instantiate this class.");
+    }
+
+    /**
+     * @return The 64-bit FNV-1a hash of the UTF-16 code units of {@code value}, as {@link String#hashCode()} is too narrow to be trusted on its own
+     */
+    public static long fnv1a(CharSequence value) {
+        long hash = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < value.length(); ++i) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        return hash;
+    }
+
+    /**
+     * The finalizer of MurmurHash3, which spreads every bit of {@code x} over the whole result.
+     */
+    public static long mix(long x) {
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        x *= 0xc4ceb9fe1a85ec53L;
+        x ^= x >>> 33;
+        return x;
+    }
+}